@@ -0,0 +1,63 @@
+package com.github.flaminc.config.benchmarks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Map;
+
+/**
+ * Bean with a mix of simple, map and nested fields to bind in benchmarks.
+ */
+public class BenchBean {
+    @Resource
+    private String name;
+
+    @Resource
+    private int port;
+
+    @Resource
+    private boolean enabled;
+
+    @Resource
+    private Double ratio;
+
+    @Resource
+    private Map<String, Object> tags;
+
+    @Resource
+    private BenchBean child;
+
+    private boolean initialized;
+
+    @PostConstruct
+    public void init() {
+        initialized = true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Double getRatio() {
+        return ratio;
+    }
+
+    public Map<String, Object> getTags() {
+        return tags;
+    }
+
+    public BenchBean getChild() {
+        return child;
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+}
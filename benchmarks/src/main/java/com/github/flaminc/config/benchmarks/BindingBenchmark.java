@@ -0,0 +1,146 @@
+package com.github.flaminc.config.benchmarks;
+
+import com.github.flaminc.config.ConfiguratorUtil;
+import com.github.flaminc.config.ReferenceHandler;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the binding entry points of {@link ConfiguratorUtil} on synthetic configs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingBenchmark {
+
+    /**
+     * Size of the generated maps, lists, nesting and reference fan out
+     */
+    @Param({"10", "1000"})
+    public int size;
+
+    private Config bean;
+    private Config deep;
+    private Config beans;
+    private ConfigObject plainBeans;
+    private Config largeMap;
+    private ConfigList constructorList;
+    private Config fanOut;
+    private Config handlerReferences;
+
+    private ConfiguratorUtil util;
+
+    @Setup
+    public void setup() {
+        bean = ConfigGenerator.bean(size);
+        deep = ConfigGenerator.deep(Math.min(size, 100));
+        beans = ConfigGenerator.beans(size);
+        plainBeans = ConfigGenerator.plainBeans(size).getObject("var");
+        largeMap = ConfigGenerator.largeMap(size);
+        constructorList = ConfigGenerator.constructorList(size).getList("list");
+        fanOut = ConfigGenerator.fanOut(size);
+        handlerReferences = ConfigGenerator.handlerReferences("bench", size);
+        util = ConfiguratorUtil.noConfig();
+    }
+
+    @Benchmark
+    public BenchBean loadClass() {
+        return util.loadClass(bean, new BenchBean());
+    }
+
+    @Benchmark
+    public BenchBean construct() {
+        return util.construct(bean, BenchBean.class);
+    }
+
+    @Benchmark
+    public BenchBean constructDeep() {
+        return util.construct(deep, BenchBean.class);
+    }
+
+    @Benchmark
+    public Object getObjectBeans() {
+        return util.getObject(beans, "var", Map.class);
+    }
+
+    /**
+     * Baseline for {@link #bindAll()}, the same beans built one at a time.
+     */
+    @Benchmark
+    public Object constructEach() {
+        final Map<String, BenchBean> built = new HashMap<String, BenchBean>();
+        for (Map.Entry<String, ConfigValue> entry : plainBeans.entrySet()) {
+            built.put(entry.getKey(), util.construct(((ConfigObject) entry.getValue()).toConfig(), BenchBean.class));
+        }
+        return built;
+    }
+
+    @Benchmark
+    public Object bindAll() {
+        return util.bindAll(plainBeans, BenchBean.class);
+    }
+
+    @Benchmark
+    public Object getObjectLargeMap() {
+        return util.getObject(largeMap, "map", Map.class);
+    }
+
+    @Benchmark
+    public Object constructFromList() {
+        return util.constructFromList(constructorList, Map.class);
+    }
+
+    /**
+     * Singleton references resolved against a fresh registry, so the shared bean is built once per call and the
+     * remaining references hit the registry.
+     */
+    @Benchmark
+    public Object referenceFanOut() {
+        return ConfiguratorUtil.withConfig(fanOut).getObject(fanOut, "refs", Map.class);
+    }
+
+    @Benchmark
+    public Object referenceHandlerDispatch() {
+        final ConfiguratorUtil handlerUtil = ConfiguratorUtil.noConfig();
+        handlerUtil.addHandler("bench", new EchoHandler());
+        return handlerUtil.getObject(handlerReferences, "refs", Map.class);
+    }
+
+    /**
+     * Handler that returns the key it was given, so only dispatch is measured.
+     */
+    private static class EchoHandler implements ReferenceHandler {
+        @Override
+        public <E> E resolve(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                             @Nullable Class<E> fieldType) {
+            return (E) keyStr;
+        }
+
+        @Override
+        public void clean() {
+
+        }
+    }
+}
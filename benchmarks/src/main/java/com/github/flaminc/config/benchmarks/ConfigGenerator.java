@@ -0,0 +1,170 @@
+package com.github.flaminc.config.benchmarks;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Builds synthetic configs of a given size for the benchmarks.
+ */
+public class ConfigGenerator {
+
+    private static final String BEAN_TYPE = BenchBean.class.getName();
+
+    private ConfigGenerator() {
+
+    }
+
+    /**
+     * Single bean with every field set and a map of tags.
+     *
+     * @param tags Number of entries in the tags map
+     * @return Config for one {@link BenchBean}
+     */
+    public static Config bean(int tags) {
+        return ConfigFactory.parseString(beanBody("bean", 0, tags));
+    }
+
+    /**
+     * N beans under 'var', each its own '~type'.
+     *
+     * @param count Number of beans
+     * @return Config with var.bean0 to var.bean(count-1)
+     */
+    public static Config beans(int count) {
+        final StringBuilder builder = new StringBuilder("var {\n");
+        for (int i = 0; i < count; i++) {
+            builder.append("  bean").append(i).append(" { ~type: ").append(BEAN_TYPE).append(", ")
+                    .append(beanBody("bean" + i, i, 4)).append(" }\n");
+        }
+        return ConfigFactory.parseString(builder.append("}\n").toString());
+    }
+
+    /**
+     * Beans of one type without '~type', the shape {@link com.github.flaminc.config.ConfiguratorUtil#bindAll}
+     * takes.
+     *
+     * @param count Number of beans
+     * @return Config with count beans under 'var'
+     */
+    public static Config plainBeans(int count) {
+        final StringBuilder builder = new StringBuilder("var {\n");
+        for (int i = 0; i < count; i++) {
+            builder.append("  bean").append(i).append(" { ").append(beanBody("bean" + i, i, 4)).append(" }\n");
+        }
+        return ConfigFactory.parseString(builder.append("}\n").toString());
+    }
+
+    /**
+     * Bean nested through its child field.
+     *
+     * @param depth Levels of nesting
+     * @return Config for a {@link BenchBean} with depth nested children
+     */
+    public static Config deep(int depth) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append("name: level").append(i).append(", port: ").append(i).append(", child: {");
+        }
+        builder.append("name: leaf");
+        for (int i = 0; i < depth; i++) {
+            builder.append('}');
+        }
+        return ConfigFactory.parseString(builder.toString());
+    }
+
+    /**
+     * Large map at 'map' with numeric values.
+     *
+     * @param size Number of entries
+     * @return Config with the map
+     */
+    public static Config largeMap(int size) {
+        final StringBuilder builder = new StringBuilder("map {\n");
+        for (int i = 0; i < size; i++) {
+            builder.append("  key").append(i).append(": ").append(i).append('\n');
+        }
+        return ConfigFactory.parseString(builder.append("}\n").toString());
+    }
+
+    /**
+     * Map in list form at 'list' where each value is built through '~constructor'.
+     *
+     * @param size Number of entries
+     * @return Config with the list
+     */
+    public static Config constructorList(int size) {
+        final StringBuilder builder = new StringBuilder("list: [\n");
+        for (int i = 0; i < size; i++) {
+            builder.append("  ").append(i).append(", { ~constructor: [\"").append(i)
+                    .append("\"], ~type: java.lang.Long }\n");
+        }
+        return ConfigFactory.parseString(builder.append("]\n").toString());
+    }
+
+    /**
+     * Map at 'refs' where every value points at the same singleton 'var.shared'.
+     *
+     * @param size Number of references
+     * @return Config with the shared bean and the references
+     */
+    public static Config fanOut(int size) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("var.shared { ~type: ").append(BEAN_TYPE).append(", ").append(beanBody("shared", 0, 4))
+                .append(" }\n");
+        builder.append("refs {\n");
+        for (int i = 0; i < size; i++) {
+            builder.append("  ref").append(i).append(" { ~ref: var.shared }\n");
+        }
+        return ConfigFactory.parseString(builder.append("}\n").toString());
+    }
+
+    /**
+     * Map at 'refs' where every value is resolved by the handler registered as namespace.
+     *
+     * @param namespace Handler name
+     * @param size      Number of references
+     * @return Config with the references
+     */
+    public static Config handlerReferences(String namespace, int size) {
+        final StringBuilder builder = new StringBuilder("refs {\n");
+        for (int i = 0; i < size; i++) {
+            builder.append("  ref").append(i).append(" { ~ref: ").append(namespace).append(".key").append(i)
+                    .append(", ~type: java.lang.String }\n");
+        }
+        return ConfigFactory.parseString(builder.append("}\n").toString());
+    }
+
+    /**
+     * Unresolved environment config with an 'all' section and the listed environments overriding part of it.
+     *
+     * @param size         Number of keys in 'all'
+     * @param environments Environment sections to add
+     * @return Config text to pass through environment resolution
+     */
+    public static String environments(int size, String... environments) {
+        final StringBuilder builder = new StringBuilder("all {\n");
+        for (int i = 0; i < size; i++) {
+            builder.append("  key").append(i).append(": value").append(i).append('\n');
+            builder.append("  ref").append(i).append(": ${key").append(i).append("}\n");
+        }
+        builder.append("}\n");
+        for (String environment : environments) {
+            builder.append(environment).append(" {\n");
+            for (int i = 0; i < size; i += 10) {
+                builder.append("  key").append(i).append(": ").append(environment).append(i).append('\n');
+            }
+            builder.append("}\n");
+        }
+        return builder.toString();
+    }
+
+    private static String beanBody(String name, int index, int tags) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("name: ").append(name).append(", port: ").append(index).append(", enabled: true, ratio: ")
+                .append(index).append(".5, tags: {");
+        for (int i = 0; i < tags; i++) {
+            builder.append(i == 0 ? "" : ", ").append("tag").append(i).append(": ").append(i);
+        }
+        return builder.append('}').toString();
+    }
+}
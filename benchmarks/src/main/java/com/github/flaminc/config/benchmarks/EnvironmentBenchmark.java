@@ -0,0 +1,97 @@
+package com.github.flaminc.config.benchmarks;
+
+import com.github.flaminc.config.EnvironmentContext;
+import com.typesafe.config.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link EnvironmentContext#resolveEnvConfig()} on a generated application.conf with an 'all' section and a
+ * few environments, against the memoized {@link EnvironmentContext#getEnvConfig()} and resolving every environment at
+ * once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentBenchmark {
+
+    private static final List<String> ENVIRONMENTS = Arrays.asList("dev", "qa", "prd");
+
+    /**
+     * Number of keys in the 'all' section
+     */
+    @Param({"10", "1000"})
+    public int size;
+
+    private File directory;
+    private ClassLoader previous;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = File.createTempFile("env-bench", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, "application.conf")),
+                "UTF-8");
+        try {
+            writer.write(ConfigGenerator.environments(size, ENVIRONMENTS.toArray(new String[ENVIRONMENTS.size()])));
+        } finally {
+            writer.close();
+        }
+        System.setProperty(EnvironmentContext.SYSTEM_ENVIRONMENT, "qa");
+        previous = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{directory.toURI().toURL()},
+                previous));
+        EnvironmentContext.clearEnvConfigs();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(previous);
+        EnvironmentContext.clearEnvConfigs();
+        new File(directory, "application.conf").delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public Config resolveEnvConfig() {
+        return EnvironmentContext.resolveEnvConfig();
+    }
+
+    @Benchmark
+    public Config getEnvConfig() {
+        return EnvironmentContext.getEnvConfig();
+    }
+
+    @Benchmark
+    public Map<String, Config> resolveEnvConfigs() {
+        return EnvironmentContext.resolveEnvConfigs(ENVIRONMENTS);
+    }
+}
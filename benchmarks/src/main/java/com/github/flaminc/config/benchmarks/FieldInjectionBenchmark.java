@@ -0,0 +1,98 @@
+package com.github.flaminc.config.benchmarks;
+
+import com.github.flaminc.config.ConfiguratorUtil;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Resource;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the fields of a flat bean: plain writes, {@link Field#set} and a full
+ * {@link ConfiguratorUtil#loadClass(Config, Object)}, which writes through the cached setter handles. The gap between
+ * the first two and the last is the price of conversion plus injection per bind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldInjectionBenchmark {
+
+    private Config config;
+    private Field[] fields;
+    private Object[] values;
+
+    private ConfiguratorUtil util;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        config = ConfigFactory.parseString("name: bench, port: 8080, enabled: true, ratio: 0.5");
+        fields = new Field[]{
+                FlatBean.class.getDeclaredField("name"),
+                FlatBean.class.getDeclaredField("port"),
+                FlatBean.class.getDeclaredField("enabled"),
+                FlatBean.class.getDeclaredField("ratio")};
+        for (Field field : fields) {
+            field.setAccessible(true);
+        }
+        values = new Object[]{"bench", 8080, true, 0.5};
+        util = ConfiguratorUtil.noConfig();
+    }
+
+    /**
+     * Baseline, the writes a hand written binder would do.
+     */
+    @Benchmark
+    public FlatBean plainWrite() {
+        final FlatBean bean = new FlatBean();
+        bean.name = (String) values[0];
+        bean.port = (Integer) values[1];
+        bean.enabled = (Boolean) values[2];
+        bean.ratio = (Double) values[3];
+        return bean;
+    }
+
+    @Benchmark
+    public FlatBean reflectiveSet() throws IllegalAccessException {
+        final FlatBean bean = new FlatBean();
+        for (int i = 0; i < fields.length; i++) {
+            fields[i].set(bean, values[i]);
+        }
+        return bean;
+    }
+
+    @Benchmark
+    public FlatBean loadClass() {
+        return util.loadClass(config, new FlatBean());
+    }
+
+    /**
+     * Bean with only scalar fields, so binding it is mostly injection.
+     */
+    public static class FlatBean {
+        @Resource
+        private String name;
+
+        @Resource
+        private int port;
+
+        @Resource
+        private boolean enabled;
+
+        @Resource
+        private double ratio;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Base for {@link AsyncReferenceHandler}s, blocking calls wait on {@link #resolveAsync}.
+ */
+public abstract class AbstractAsyncReferenceHandler implements AsyncReferenceHandler {
+
+    @Override
+    public <E> E resolve(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                         @Nullable Class<E> fieldType) {
+        try {
+            return resolveAsync(oriKey, keyStr, config, fieldType).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted resolving reference '" + oriKey + "'", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Cannot resolve reference '" + oriKey + "'", e.getCause());
+        }
+    }
+
+    @Override
+    public void clean() {
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link ReferenceHandler} that resolves without blocking the caller. When a bean is loaded,
+ * {@link ConfiguratorUtil} finds every '~ref' in its config that goes to an async handler and starts them all at
+ * once, then waits for each one as its field is wired. Each wait is bounded by the timeout set with
+ * {@link ConfiguratorUtil#setHandlerTimeout(String, long, java.util.concurrent.TimeUnit)}.
+ * <p/>
+ * {@link AbstractAsyncReferenceHandler} implements the blocking {@link #resolve} on top of {@link #resolveAsync}.
+ */
+public interface AsyncReferenceHandler extends ReferenceHandler {
+    /**
+     * Dereference key in some way specific to handler, without blocking.
+     *
+     * @param oriKey    Original reference key
+     * @param keyStr    Original key less first key in rendered form
+     * @param config    Config where ref was requested
+     * @param fieldType Type requested or null if unknown
+     * @return Future completed with the object at reference
+     */
+    public <E> CompletableFuture<E> resolveAsync(@NotNull String oriKey,
+                                                 @NotNull String keyStr,
+                                                 @NotNull Config config,
+                                                 @Nullable Class<E> fieldType);
+}
@@ -0,0 +1,85 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * {@link ReferenceHandler} that can resolve many keys in one call, for handlers where each lookup has a fixed cost
+ * such as opening a file or a round trip to a store. When a bean is loaded, {@link ConfiguratorUtil} finds every
+ * '~ref' in its config going to a batch handler and passes them all to {@link #resolveAll(Collection)} at once,
+ * before any field is wired. Each reference is then served from the result.
+ * <p/>
+ * {@link #resolve} is still used for references outside of a bean load, such as
+ * {@link ConfiguratorUtil#construct(Class)}, for keys left out of the result and for results that are not of the
+ * type their reference asked for. A key asked for with more than one type is passed in a separate call per type.
+ */
+public interface BatchReferenceHandler extends ReferenceHandler {
+    /**
+     * Dereference all keys in one go.
+     *
+     * @param requests References found in the bean, in the order they appear
+     * @return Object at reference by {@link Request#getOriKey()}. Keys left out are resolved one at a time with
+     * {@link #resolve}, a key mapped to null resolves to null.
+     */
+    @NotNull
+    public Map<String, ?> resolveAll(@NotNull Collection<Request> requests);
+
+    /**
+     * One reference passed to {@link #resolveAll(Collection)}, holding the same arguments {@link #resolve} takes.
+     */
+    public static class Request {
+        private final String oriKey;
+        private final String keyStr;
+        private final Config config;
+        private final Class<?> fieldType;
+
+        public Request(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                       @Nullable Class<?> fieldType) {
+            this.oriKey = oriKey;
+            this.keyStr = keyStr;
+            this.config = config;
+            this.fieldType = fieldType;
+        }
+
+        /**
+         * @return Original reference key
+         */
+        @NotNull
+        public String getOriKey() {
+            return oriKey;
+        }
+
+        /**
+         * @return Original key less first key in rendered form
+         */
+        @NotNull
+        public String getKeyStr() {
+            return keyStr;
+        }
+
+        /**
+         * @return Config where ref was requested
+         */
+        @NotNull
+        public Config getConfig() {
+            return config;
+        }
+
+        /**
+         * @return Type requested or null if unknown
+         */
+        @Nullable
+        public Class<?> getFieldType() {
+            return fieldType;
+        }
+
+        @Override
+        public String toString() {
+            return oriKey;
+        }
+    }
+}
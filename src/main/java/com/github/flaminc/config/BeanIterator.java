@@ -0,0 +1,141 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigValue;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Beans bound one at a time from a document holding a list, such as a large file of routes. Only the element being
+ * bound is read and parsed, so memory does not grow with the size of the document. Each element is bound the same as
+ * a field of the type would be, so objects follow the '~ref', '~constructor' and '~type' rules of
+ * {@link ConfiguratorUtil#construct(Config, Class)}. Substitutions can only refer to the element they are in.
+ * <p/>
+ * The document is closed once the end of the list is reached or an element fails. Close it when stopping early.
+ * @see ConfiguratorUtil#iterateList(java.io.File, Class)
+ */
+public class BeanIterator<E> implements Iterator<E>, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(BeanIterator.class);
+
+    /**
+     * Key each element is parsed under
+     */
+    private static final String KEY = "element";
+
+    private final ConfiguratorUtil util;
+
+    private final Class<E> type;
+
+    private final Reader reader;
+
+    private final String name;
+
+    private final ListScanner scanner;
+
+    private E next;
+
+    private boolean fetched;
+
+    private boolean done;
+
+    private int index;
+
+    BeanIterator(@NotNull ConfiguratorUtil util, @NotNull Class<E> type, @NotNull Reader reader,
+                 @NotNull String name) {
+        this.util = util;
+        this.type = type;
+        this.reader = reader;
+        this.name = name;
+        this.scanner = new ListScanner(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!fetched && !done) {
+            fetch();
+        }
+        return !done;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        final E bean = next;
+        next = null;
+        return bean;
+    }
+
+    private void fetch() {
+        boolean failed = true;
+        try {
+            final String text = scanner.next();
+            if (text == null) {
+                done = true;
+                close();
+            } else {
+                next = bind(text);
+                fetched = true;
+                index++;
+            }
+            failed = false;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read list element " + index + " of " + name, e);
+        } finally {
+            if (failed) {
+                done = true;
+                close();
+            }
+        }
+    }
+
+    private E bind(String text) {
+        final String where = name + " list element " + index + " at line " + scanner.getElementLine();
+        final Config config = ConfigFactory.parseString(KEY + ": " + text,
+                ConfigParseOptions.defaults().setOriginDescription(where)).resolve();
+        final ConfigValue value = config.root().get(KEY);
+        return (E) util.convertValue(value, type, where);
+    }
+
+    /**
+     * @return Remaining beans as a sequential stream, closing the document when the stream is closed
+     */
+    @NotNull
+    public Stream<E> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        close();
+                    }
+                });
+    }
+
+    /**
+     * Close the document. Remaining elements are not read.
+     */
+    @Override
+    public void close() {
+        done = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            log.warn("Cannot close " + name, e);
+        }
+    }
+}
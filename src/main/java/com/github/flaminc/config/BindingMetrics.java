@@ -0,0 +1,78 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Receives timings from {@link ConfiguratorUtil}. Set one with {@link ConfiguratorUtil#setMetrics(BindingMetrics)};
+ * {@link BindingStats} keeps totals and publishes them over JMX.
+ * <p/>
+ * Nothing is timed unless {@link #isEnabled()} returns true, so the default {@link #NONE} costs one check per call.
+ * Implementations are called from every binding thread and must be thread safe.
+ */
+public interface BindingMetrics {
+
+    /**
+     * Records nothing
+     */
+    public static final BindingMetrics NONE = new BindingMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void operation(@NotNull Operation operation, @Nullable Class<?> type, @Nullable String path,
+                              long nanos, boolean failed) {
+        }
+
+        @Override
+        public void reference(@NotNull String handler, long nanos, boolean failed) {
+        }
+
+        @Override
+        public void registrySize(int size) {
+        }
+    };
+
+    /**
+     * Timed operations, the time of nested operations is included in the outer ones
+     */
+    public enum Operation {
+        CONSTRUCT,
+        LOAD_CLASS,
+        GET_OBJECT,
+        /**
+         * A field of a bean wired by reflection from its path
+         */
+        WIRE_FIELD,
+        POST_CONSTRUCT
+    }
+
+    /**
+     * @return True to have operations timed
+     */
+    public boolean isEnabled();
+
+    /**
+     * @param operation Operation timed
+     * @param type      Bean type, null if not known
+     * @param path      Config path or {@link javax.annotation.PostConstruct} method name, null if not known
+     * @param nanos     Time taken
+     * @param failed    True if operation threw
+     */
+    public void operation(@NotNull Operation operation, @Nullable Class<?> type, @Nullable String path, long nanos,
+                          boolean failed);
+
+    /**
+     * @param handler Namespace of the {@link ReferenceHandler} that resolved a '~ref', 'var' for singletons
+     * @param nanos   Time taken
+     * @param failed  True if resolving threw
+     */
+    public void reference(@NotNull String handler, long nanos, boolean failed);
+
+    /**
+     * @param size Number of singletons built so far
+     */
+    public void registrySize(int size);
+}
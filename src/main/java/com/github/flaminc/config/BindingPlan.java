@@ -0,0 +1,353 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reflection scan of a bean class done once per class. Holds the fields tagged with {@link Resource} (including
+ * the ones declared on super classes), the public methods tagged with {@link PostConstruct} and the constructor to
+ * build the bean with when it takes its values as parameters.
+ * <p/>
+ * Plans are cached with a {@link ClassValue} so they go away with the class loader of the bean class.
+ */
+class BindingPlan {
+    private static final Logger log = LoggerFactory.getLogger(BindingPlan.class);
+
+    private static final ClassValue<BindingPlan> plans = new ClassValue<BindingPlan>() {
+        @Override
+        protected BindingPlan computeValue(Class<?> type) {
+            return new BindingPlan(type);
+        }
+    };
+
+    /**
+     * Look up the plan for the class, building it on first use.
+     *
+     * @param type Bean class
+     * @return Cached plan
+     */
+    @NotNull
+    static BindingPlan of(@NotNull Class<?> type) {
+        return plans.get(type);
+    }
+
+    private final Class<?> type;
+
+    private final List<WiredField> fields;
+
+    private final List<Method> postConstructs;
+
+    private final ConfigBinder<Object> binder;
+
+    private final Creator creator;
+
+    /**
+     * Fields left to wire after the creator is called
+     */
+    private final List<WiredField> remainingFields;
+
+    private BindingPlan(Class<?> type) {
+        this.type = type;
+        this.fields = Collections.unmodifiableList(scanFields(type));
+        this.postConstructs = Collections.unmodifiableList(scanPostConstructs(type));
+        this.binder = findBinder(type);
+        this.creator = findCreator(type);
+        if (creator == null) {
+            this.remainingFields = fields;
+        } else {
+            final List<String> params = Arrays.asList(creator.paths);
+            final List<WiredField> remaining = new ArrayList<WiredField>();
+            for (WiredField field : fields) {
+                if (!params.contains(field.getPath())) {
+                    remaining.add(field);
+                }
+            }
+            this.remainingFields = Collections.unmodifiableList(remaining);
+        }
+    }
+
+    /**
+     * Find the constructor taking the bean values: a public constructor with every parameter tagged with
+     * {@link ConfigParam}, or else the only public constructor of a class without a no argument one when parameter
+     * names were compiled in.
+     */
+    private static Creator findCreator(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isEnum()) {
+            return null;
+        }
+        Constructor<?> tagged = null;
+        String[] taggedPaths = null;
+        for (Constructor<?> constructor : type.getConstructors()) {
+            final String[] paths = taggedPaths(constructor);
+            if (paths == null) {
+                continue;
+            }
+            if (tagged != null) {
+                throw new IllegalArgumentException("More than one constructor of " + type.getName() +
+                        " has @ConfigParam parameters");
+            }
+            tagged = constructor;
+            taggedPaths = paths;
+        }
+        if (tagged != null) {
+            return new Creator(tagged, taggedPaths);
+        }
+
+        final Constructor<?>[] constructors = type.getConstructors();
+        if (constructors.length != 1 || constructors[0].getParameterCount() == 0) {
+            return null;
+        }
+        final Parameter[] parameters = constructors[0].getParameters();
+        final String[] paths = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            if (!parameters[i].isNamePresent()) {
+                // not compiled with -parameters
+                return null;
+            }
+            paths[i] = parameters[i].getName();
+        }
+        return new Creator(constructors[0], paths);
+    }
+
+    /**
+     * @return Keys of the parameters or null if none are tagged
+     */
+    private static String[] taggedPaths(Constructor<?> constructor) {
+        final Annotation[][] annotations = constructor.getParameterAnnotations();
+        final String[] paths = new String[annotations.length];
+        int tagged = 0;
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ConfigParam) {
+                    paths[i] = ((ConfigParam) annotation).value();
+                    tagged++;
+                }
+            }
+        }
+        if (tagged == 0) {
+            return null;
+        }
+        if (tagged != paths.length) {
+            throw new IllegalArgumentException("Every parameter of " + constructor + " needs @ConfigParam");
+        }
+        return paths;
+    }
+
+    /**
+     * Look for a binder generated at compile time next to the class.
+     */
+    private static ConfigBinder<Object> findBinder(Class<?> type) {
+        try {
+            final Class<?> binderType = Class.forName(type.getName() + ConfigBinder.SUFFIX, true,
+                    type.getClassLoader());
+            if (ConfigBinder.class.isAssignableFrom(binderType)) {
+                log.debug("using generated binder {}", binderType.getName());
+                return (ConfigBinder<Object>) binderType.newInstance();
+            }
+        } catch (ClassNotFoundException e) {
+            // no generated binder, use reflection
+        } catch (LinkageError e) {
+            log.warn("Cannot load generated binder for " + type.getName(), e);
+        } catch (InstantiationException e) {
+            log.warn("Cannot create generated binder for " + type.getName(), e);
+        } catch (IllegalAccessException e) {
+            log.warn("Cannot create generated binder for " + type.getName(), e);
+        }
+        return null;
+    }
+
+    private static List<WiredField> scanFields(Class<?> type) {
+        // walk up the hierarchy so parent fields are wired before the fields of the child
+        final List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+
+        final List<WiredField> wired = new ArrayList<WiredField>();
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getAnnotation(Resource.class) != null && !Modifier.isStatic(field.getModifiers())) {
+                    wired.add(new WiredField(field));
+                }
+            }
+        }
+        return wired;
+    }
+
+    private static List<Method> scanPostConstructs(Class<?> type) {
+        final List<Method> methods = new ArrayList<Method>();
+        for (Method method : type.getMethods()) {
+            if (method.isAnnotationPresent(PostConstruct.class)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    @NotNull
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return Fields to wire, super class fields first
+     */
+    @NotNull
+    List<WiredField> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return Public methods to call once wiring is done
+     */
+    @NotNull
+    List<Method> getPostConstructs() {
+        return postConstructs;
+    }
+
+    /**
+     * @return Constructor taking the bean values or null if the bean is built empty and its fields set
+     */
+    @Nullable
+    Creator getCreator() {
+        return creator;
+    }
+
+    /**
+     * @return Fields to wire after calling the creator, the ones not passed to it
+     */
+    @NotNull
+    List<WiredField> getRemainingFields() {
+        return remainingFields;
+    }
+
+    /**
+     * @return Binder generated at compile time or null if fields must be wired with reflection
+     */
+    @Nullable
+    ConfigBinder<Object> getBinder() {
+        return binder;
+    }
+
+    /**
+     * Field tagged with {@link Resource} along with the data needed to wire it.
+     */
+    static class WiredField {
+        private final Field field;
+        private final Class<?> type;
+        private final Type genericType;
+        private final String path;
+        private final FieldInjector injector;
+
+        private WiredField(Field field) {
+            field.setAccessible(true);
+            this.field = field;
+            this.type = field.getType();
+            this.genericType = field.getGenericType();
+            this.path = field.getName();
+            this.injector = FieldInjector.of(field);
+        }
+
+        @NotNull
+        Field getField() {
+            return field;
+        }
+
+        @NotNull
+        Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return Declared type with its type arguments, such as {@code Map<Integer, Integer>}
+         */
+        @NotNull
+        Type getGenericType() {
+            return genericType;
+        }
+
+        /**
+         * @return Config path the field is read from
+         */
+        @NotNull
+        String getPath() {
+            return path;
+        }
+
+        /**
+         * Set the field on the instance using the cached injector.
+         *
+         * @param instance Instance owning the field
+         * @param value    Value to set
+         * @throws IllegalAccessException when field cannot be written
+         */
+        void inject(@NotNull Object instance, @Nullable Object value) throws IllegalAccessException {
+            injector.inject(instance, value);
+        }
+    }
+
+    /**
+     * Constructor taking the bean values as parameters, along with the keys they are read from.
+     */
+    static class Creator {
+        private final ConstructorResolver.ResolvedConstructor<Object> constructor;
+        private final String[] paths;
+        private final Class<?>[] types;
+        private final Type[] genericTypes;
+
+        private Creator(Constructor<?> constructor, String[] paths) {
+            this.constructor = new ConstructorResolver.ResolvedConstructor<Object>((Constructor<Object>) constructor);
+            this.paths = paths;
+            this.types = constructor.getParameterTypes();
+            final Type[] declared = constructor.getGenericParameterTypes();
+            // inner class constructors can leave out synthetic parameters from their generic signature
+            this.genericTypes = declared.length == types.length ? declared : types;
+        }
+
+        /**
+         * @return Config keys of the parameters in order
+         */
+        @NotNull
+        String[] getPaths() {
+            return paths;
+        }
+
+        /**
+         * @return Types of the parameters in order
+         */
+        @NotNull
+        Class<?>[] getTypes() {
+            return types;
+        }
+
+        /**
+         * @return Declared types of the parameters in order, with their type arguments
+         */
+        @NotNull
+        Type[] getGenericTypes() {
+            return genericTypes;
+        }
+
+        @NotNull
+        ConstructorResolver.ResolvedConstructor<Object> getConstructor() {
+            return constructor;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link BindingMetrics} keeping counts, errors and total and max time per operation and bean type, and per reference
+ * handler. Register it with {@link #register(String)} to read it over JMX.
+ * <p/>
+ * Timings by path as well are off by default, since there can be a great many paths; turn them on with
+ * {@link #setPathLimit(int)}. Once that many paths are timed, further paths are left out.
+ */
+public class BindingStats implements BindingMetrics, BindingStatsMXBean {
+
+    /**
+     * Stands in for an unknown bean type, the maps do not take null keys
+     */
+    private static final Class<?> UNKNOWN_TYPE = Unknown.class;
+
+    /**
+     * Counters by bean type, one map per operation
+     */
+    private final ConcurrentMap<Class<?>, Counter>[] operations;
+
+    private final ConcurrentMap<String, Counter> paths = new ConcurrentHashMap<String, Counter>();
+
+    private final ConcurrentMap<String, Counter> references = new ConcurrentHashMap<String, Counter>();
+
+    private volatile int registrySize;
+
+    private volatile int pathLimit;
+
+    public BindingStats() {
+        final BindingMetrics.Operation[] kinds = BindingMetrics.Operation.values();
+        operations = new ConcurrentMap[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            operations[i] = new ConcurrentHashMap<Class<?>, Counter>();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void operation(@NotNull Operation operation, @Nullable Class<?> type, @Nullable String path, long nanos,
+                          boolean failed) {
+        counter(operations[operation.ordinal()], type == null ? UNKNOWN_TYPE : type).add(nanos, failed);
+        final int limit = pathLimit;
+        if (limit > 0 && path != null) {
+            final String name = operation + " " + (type == null ? "?" : type.getName()) + " " + path;
+            Counter counter = paths.get(name);
+            if (counter == null) {
+                if (paths.size() >= limit) {
+                    return;
+                }
+                counter = counter(paths, name);
+            }
+            counter.add(nanos, failed);
+        }
+    }
+
+    @Override
+    public void reference(@NotNull String handler, long nanos, boolean failed) {
+        counter(references, handler).add(nanos, failed);
+    }
+
+    @Override
+    public void registrySize(int size) {
+        registrySize = size;
+    }
+
+    private static <K> Counter counter(ConcurrentMap<K, Counter> counters, K name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            final Counter created = new Counter();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public List<Timing> getOperations() {
+        final List<Timing> timings = new ArrayList<Timing>();
+        for (BindingMetrics.Operation operation : BindingMetrics.Operation.values()) {
+            for (Map.Entry<Class<?>, Counter> entry : operations[operation.ordinal()].entrySet()) {
+                final Class<?> type = entry.getKey();
+                timings.add(entry.getValue().timing(operation + " " + (type == UNKNOWN_TYPE ? "?" : type.getName())));
+            }
+        }
+        return timings;
+    }
+
+    @Override
+    public List<Timing> getPaths() {
+        return timings(paths);
+    }
+
+    @Override
+    public int getPathLimit() {
+        return pathLimit;
+    }
+
+    @Override
+    public void setPathLimit(int pathLimit) {
+        if (pathLimit < 0) {
+            throw new IllegalArgumentException("Path limit must not be negative but was " + pathLimit);
+        }
+        this.pathLimit = pathLimit;
+    }
+
+    @Override
+    public List<Timing> getReferences() {
+        return timings(references);
+    }
+
+    private static List<Timing> timings(Map<String, Counter> counters) {
+        final List<Timing> timings = new ArrayList<Timing>(counters.size());
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            timings.add(entry.getValue().timing(entry.getKey()));
+        }
+        return timings;
+    }
+
+    @Override
+    public int getRegistrySize() {
+        return registrySize;
+    }
+
+    @Override
+    public void reset() {
+        for (ConcurrentMap<Class<?>, Counter> counters : operations) {
+            counters.clear();
+        }
+        paths.clear();
+        references.clear();
+    }
+
+    /**
+     * Register with the platform MBean server.
+     *
+     * @param name Name telling this instance apart, such as the application name
+     * @return Name registered under
+     * @throws JMException if it cannot be registered
+     */
+    @NotNull
+    public ObjectName register(@NotNull String name) throws JMException {
+        final ObjectName objectName = new ObjectName("com.github.flaminc.config:type=BindingStats,name=" +
+                ObjectName.quote(name));
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    private static class Counter {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void add(long time, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            nanos.add(time);
+            long max = maxNanos.get();
+            while (time > max && !maxNanos.compareAndSet(max, time)) {
+                max = maxNanos.get();
+            }
+        }
+
+        private Timing timing(String name) {
+            return new Timing(name, count.sum(), errors.sum(), nanos.sum(), maxNanos.get());
+        }
+    }
+
+    private static final class Unknown {
+    }
+
+    /**
+     * Totals for one name at the time they were read.
+     */
+    public static class Timing {
+        private final String name;
+        private final long count;
+        private final long errors;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        @ConstructorProperties({"name", "count", "errors", "totalNanos", "maxNanos"})
+        public Timing(String name, long count, long errors, long totalNanos, long maxNanos) {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        @Override
+        public String toString() {
+            return name + " count=" + count + " errors=" + errors + " total=" + totalNanos + "ns max=" + maxNanos +
+                    "ns";
+        }
+    }
+}
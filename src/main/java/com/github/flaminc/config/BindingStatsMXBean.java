@@ -0,0 +1,44 @@
+package com.github.flaminc.config;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link BindingStats}.
+ */
+public interface BindingStatsMXBean {
+
+    /**
+     * @return Timings by operation and bean type
+     */
+    public List<BindingStats.Timing> getOperations();
+
+    /**
+     * @return Timings by operation, bean type and path, for as many paths as the path limit allows
+     */
+    public List<BindingStats.Timing> getPaths();
+
+    /**
+     * @return Most distinct paths timed, 0 if paths are not timed
+     */
+    public int getPathLimit();
+
+    /**
+     * @param pathLimit Most distinct paths to time, 0 to stop timing paths
+     */
+    public void setPathLimit(int pathLimit);
+
+    /**
+     * @return Timings by reference handler namespace
+     */
+    public List<BindingStats.Timing> getReferences();
+
+    /**
+     * @return Number of singletons last reported by the registry
+     */
+    public int getRegistrySize();
+
+    /**
+     * Clear all timings.
+     */
+    public void reset();
+}
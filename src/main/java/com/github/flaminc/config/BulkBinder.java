@@ -0,0 +1,174 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Binds many configs to one bean type. The type is checked, its binding plan built and its no argument constructor
+ * found once up front, so each plain bean config (no '~ref', '~constructor' or '~type') is just a constructor call
+ * and the field wiring. Anything else, including beans built with a {@link ConfigParam} constructor, is bound the
+ * same as a single field of the type would be.
+ * <p/>
+ * Values are split in to chunks bound on a fork join pool, writing in to an array so no locking is needed. The first
+ * failure stops the chunks that have not started and is thrown to the caller. Async and batched references in the
+ * values are started once for the whole call and shared by every chunk.
+ */
+class BulkBinder<E> {
+
+    /**
+     * Fewest values worth handing to another thread
+     */
+    private static final int MIN_CHUNK = 64;
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final ConfiguratorUtil util;
+
+    private final Class<E> type;
+
+    /**
+     * No argument constructor for plain bean configs, null if every value takes the general route
+     */
+    private final ConstructorResolver.ResolvedConstructor<E> constructor;
+
+    BulkBinder(@NotNull ConfiguratorUtil util, @NotNull Class<E> type) {
+        this.util = util;
+        this.type = type;
+        if (isBean(type) && BindingPlan.of(type).getCreator() == null) {
+            this.constructor = ConstructorResolver.resolve(type, new Class<?>[0]);
+        } else {
+            this.constructor = null;
+        }
+    }
+
+    private static boolean isBean(Class<?> type) {
+        return !type.isInterface() && !Modifier.isAbstract(type.getModifiers()) && !type.isPrimitive() &&
+                !type.isArray() && !type.isEnum() && !Map.class.isAssignableFrom(type) && !PrimitiveMaps.supports(type);
+    }
+
+    /**
+     * Bind each value.
+     *
+     * @param values Values to bind
+     * @param keys   Object keys of the values for error messages, null for list positions
+     * @param pool   Pool to bind chunks on
+     * @return Bound values in the same order
+     */
+    @NotNull
+    Object[] bind(@NotNull final List<? extends ConfigValue> values, @Nullable final String[] keys,
+                  @NotNull ForkJoinPool pool) {
+        final Object[] bound = new Object[values.size()];
+        final int chunk = Math.max(MIN_CHUNK, values.size() / (pool.getParallelism() * 4));
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        final ReferencePrefetch started = util.startPrefetch(values, type);
+        final Chunk task = new Chunk(values, keys, bound, 0, values.size(), chunk, failure,
+                util.sharedPrefetch(started));
+        try {
+            if (values.size() <= chunk) {
+                // not worth the hand off
+                task.bindRange();
+            } else {
+                pool.invoke(task);
+            }
+        } finally {
+            if (started != null) {
+                started.cancelRemaining();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return bound;
+    }
+
+    private Object bindOne(ConfigValue value, String[] keys, int index) {
+        try {
+            if (constructor != null && value.valueType() == ConfigValueType.OBJECT && isPlain((ConfigObject) value)) {
+                final E instance = constructor.newInstance(NO_ARGS);
+                return util.loadClass(((ConfigObject) value).toConfig(), instance);
+            }
+            return util.convertValue(value, type, where(keys, index));
+        } catch (InvocationTargetException e) {
+            throw failed(keys, index, e);
+        } catch (InstantiationException e) {
+            throw failed(keys, index, e);
+        } catch (IllegalAccessException e) {
+            throw failed(keys, index, e);
+        } catch (RuntimeException e) {
+            throw failed(keys, index, e);
+        }
+    }
+
+    private static String where(String[] keys, int index) {
+        return keys == null ? "list position " + index : "key '" + keys[index] + "'";
+    }
+
+    private RuntimeException failed(String[] keys, int index, Exception cause) {
+        return new RuntimeException("Cannot bind " + where(keys, index) + " as " + type.getName(), cause);
+    }
+
+    private static boolean isPlain(ConfigObject object) {
+        return ConfigValues.valueAt(object, "~ref") == null && ConfigValues.valueAt(object, "~constructor") == null &&
+                ConfigValues.valueAt(object, "~type") == null;
+    }
+
+    private class Chunk extends RecursiveAction {
+        private final List<? extends ConfigValue> values;
+        private final String[] keys;
+        private final Object[] bound;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final AtomicReference<RuntimeException> failure;
+        private final ReferencePrefetch prefetch;
+
+        private Chunk(List<? extends ConfigValue> values, String[] keys, Object[] bound, int from, int to, int chunk,
+                      AtomicReference<RuntimeException> failure, ReferencePrefetch prefetch) {
+            this.values = values;
+            this.keys = keys;
+            this.bound = bound;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.failure = failure;
+            this.prefetch = prefetch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                bindRange();
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new Chunk(values, keys, bound, from, middle, chunk, failure, prefetch),
+                        new Chunk(values, keys, bound, middle, to, chunk, failure, prefetch));
+            }
+        }
+
+        private void bindRange() {
+            final ReferencePrefetch previous = util.enterPrefetch(prefetch);
+            try {
+                for (int i = from; i < to && failure.get() == null; i++) {
+                    try {
+                        bound[i] = bindOne(values.get(i), keys, i);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            } finally {
+                util.exitPrefetch(previous);
+            }
+        }
+    }
+}
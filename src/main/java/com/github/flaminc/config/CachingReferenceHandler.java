@@ -0,0 +1,390 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches what another {@link ReferenceHandler} resolves, so handlers do not need caches of their own. A reference is
+ * cached by its key, the type requested and the config holding the '~ref'. Only one thread loads a given reference at
+ * a time, others asking for it meanwhile wait for that load. A failed load is not cached.
+ * <p/>
+ * The cache holds at most maximumSize references. When full, the least used of a small sample of references is
+ * evicted, counting how often each was used with counts halved as the cache turns over so references that were only
+ * popular long ago are not kept forever. Samples are taken in turn around the cache, and counts are halved as each
+ * reference is next used or sampled, so neither walks the whole cache. References can also expire a fixed time after
+ * being loaded, and can be reloaded in the background before then so callers keep getting the old value instead of
+ * waiting.
+ * <p/>
+ * Register it in place of the handler it wraps:
+ * <pre>
+ * util.addHandler("secrets", new CachingReferenceHandler(secretsHandler, 1000));
+ * </pre>
+ * Async and batch resolution of the wrapped handler is not used, each miss calls
+ * {@link ReferenceHandler#resolve}.
+ */
+public class CachingReferenceHandler implements ReferenceHandler {
+    private static final Logger log = LoggerFactory.getLogger(CachingReferenceHandler.class);
+
+    /**
+     * Counts stop going up here, enough to tell popular references apart
+     */
+    private static final int MAX_FREQUENCY = 15;
+
+    /**
+     * Loaded references looked at to pick one to evict
+     */
+    private static final int SAMPLE_SIZE = 8;
+
+    private final ReferenceHandler delegate;
+
+    private final int maximumSize;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    /**
+     * Uses since frequencies were last halved
+     */
+    private final AtomicInteger uses = new AtomicInteger();
+
+    /**
+     * Times frequencies were halved
+     */
+    private final AtomicInteger ages = new AtomicInteger();
+
+    /**
+     * Where the next eviction sample starts, guarded by this
+     */
+    private Iterator<Map.Entry<Key, Entry>> sweep;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile long expireNanos;
+
+    private volatile long refreshNanos;
+
+    /**
+     * @param delegate    Handler to cache
+     * @param maximumSize Most references to keep
+     */
+    public CachingReferenceHandler(@NotNull ReferenceHandler delegate, int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive but was " + maximumSize);
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Expire references a fixed time after they are loaded. They are kept until evicted by default.
+     *
+     * @param duration Time to keep a reference, 0 to keep until evicted
+     * @param unit     Unit of duration
+     */
+    public void setExpireAfterWrite(long duration, @NotNull TimeUnit unit) {
+        expireNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * Reload references in the background once they are this old, when they are next asked for. The old value is
+     * returned until the reload is done and kept if it fails. Should be shorter than the expire time to have any
+     * effect.
+     *
+     * @param duration Age to reload at, 0 to never reload
+     * @param unit     Unit of duration
+     */
+    public void setRefreshAfterWrite(long duration, @NotNull TimeUnit unit) {
+        refreshNanos = unit.toNanos(duration);
+    }
+
+    @Override
+    public <E> E resolve(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                         @Nullable Class<E> fieldType) {
+        final Key key = new Key(oriKey, fieldType, config.root());
+        while (true) {
+            final Entry entry = entries.get(key);
+            if (entry == null) {
+                final Entry loading = new Entry();
+                if (entries.putIfAbsent(key, loading) == null) {
+                    misses.increment();
+                    return (E) load(key, loading, keyStr, config, fieldType);
+                }
+                // lost the race, wait on the winner
+                continue;
+            }
+            if (!entry.future.isDone()) {
+                hits.increment();
+                entry.touch();
+                return (E) join(entry.future);
+            }
+            final long age = nanoTime() - entry.loaded;
+            final long expire = expireNanos;
+            if (expire > 0 && age >= expire) {
+                entries.remove(key, entry);
+                continue;
+            }
+            final long refresh = refreshNanos;
+            if (refresh > 0 && age >= refresh && entry.refreshing.compareAndSet(false, true)) {
+                refresh(key, entry, keyStr, config, fieldType);
+            }
+            hits.increment();
+            entry.touch();
+            return (E) join(entry.future);
+        }
+    }
+
+    private Object load(Key key, Entry entry, String keyStr, Config config, Class<?> fieldType) {
+        final Object value;
+        try {
+            value = delegate.resolve(key.refKey, keyStr, config, fieldType);
+        } catch (Throwable e) {
+            // errors too, or threads waiting on this load would never return
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        entry.loaded = nanoTime();
+        entry.future.complete(value);
+        entry.touch();
+        if (entries.size() > maximumSize) {
+            evict();
+        }
+        return value;
+    }
+
+    private void refresh(final Key key, final Entry entry, final String keyStr, final Config config,
+                         final Class<?> fieldType) {
+        ReferencePrefetch.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean replaced = false;
+                try {
+                    final Entry reloaded = new Entry();
+                    reloaded.frequency.set(entry.frequency.get());
+                    reloaded.aged = entry.aged;
+                    final Object value = delegate.resolve(key.refKey, keyStr, config, fieldType);
+                    reloaded.loaded = nanoTime();
+                    reloaded.future.complete(value);
+                    replaced = entries.replace(key, entry, reloaded);
+                } catch (RuntimeException e) {
+                    log.warn("Cannot refresh reference '{}', keeping the old value", key.refKey, e);
+                } finally {
+                    if (!replaced) {
+                        // let the next use try again
+                        entry.refreshing.set(false);
+                    }
+                }
+            }
+        });
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void recordUse() {
+        final int used = uses.incrementAndGet();
+        if (used >= maximumSize * 10 && uses.compareAndSet(used, 0)) {
+            // age the counts so old favourites can be evicted, each entry catches up when next looked at
+            ages.incrementAndGet();
+        }
+    }
+
+    /**
+     * Evict the least used loaded reference of a sample until back at the maximum size. Of equally used references
+     * the one used longest ago goes first.
+     */
+    private synchronized void evict() {
+        while (entries.size() > maximumSize) {
+            Map.Entry<Key, Entry> victim = null;
+            int victimFrequency = 0;
+            int sampled = 0;
+            // at most one lap of the cache, in case everything is still loading
+            for (int seen = entries.size(); sampled < SAMPLE_SIZE && seen > 0; seen--) {
+                if (sweep == null || !sweep.hasNext()) {
+                    sweep = entries.entrySet().iterator();
+                    if (!sweep.hasNext()) {
+                        break;
+                    }
+                }
+                final Map.Entry<Key, Entry> candidate = sweep.next();
+                final Entry entry = candidate.getValue();
+                if (!entry.future.isDone()) {
+                    continue;
+                }
+                sampled++;
+                final int frequency = entry.frequency();
+                if (victim == null || frequency < victimFrequency ||
+                        (frequency == victimFrequency && entry.lastUsed < victim.getValue().lastUsed)) {
+                    victim = candidate;
+                    victimFrequency = frequency;
+                }
+            }
+            if (victim == null) {
+                // everything is still loading
+                return;
+            }
+            if (entries.remove(victim.getKey(), victim.getValue())) {
+                evictions.increment();
+                log.trace("evicted reference {}", victim.getKey().refKey);
+            }
+        }
+    }
+
+    /**
+     * Drop cached references for a key, whatever type or config they were requested with.
+     *
+     * @param refKey Reference key, such as 'secrets.db.password'
+     */
+    public void invalidate(@NotNull String refKey) {
+        for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().refKey.equals(refKey)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop every cached reference and clean the wrapped handler.
+     */
+    @Override
+    public void clean() {
+        entries.clear();
+        delegate.clean();
+    }
+
+    /**
+     * @return Number of references cached or loading
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Times a reference was served from the cache, including waiting on another thread loading it
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Times a reference was loaded from the wrapped handler, not counting background refreshes
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Times a reference was dropped to stay within the maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Clock for expiring and refreshing references
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return "CachingReferenceHandler{" + delegate + " size=" + entries.size() + " hits=" + hits.sum() +
+                " misses=" + misses.sum() + " evictions=" + evictions.sum() + "}";
+    }
+
+    private static class Key {
+        private final String refKey;
+        private final Class<?> fieldType;
+        private final ConfigObject config;
+        private final int hash;
+
+        private Key(String refKey, Class<?> fieldType, ConfigObject config) {
+            this.refKey = refKey;
+            this.fieldType = fieldType;
+            this.config = config;
+            this.hash = 31 * (31 * refKey.hashCode() + (fieldType == null ? 0 : fieldType.hashCode())) +
+                    config.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hash == other.hash && refKey.equals(other.refKey) && fieldType == other.fieldType &&
+                    config.equals(other.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private class Entry {
+        private final CompletableFuture<Object> future = new CompletableFuture<Object>();
+        private final AtomicInteger frequency = new AtomicInteger();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long loaded;
+        private volatile long lastUsed = nanoTime();
+
+        /**
+         * Value of ages the frequency was last halved up to
+         */
+        private volatile int aged = ages.get();
+
+        /**
+         * @return Use count, halved for every aging since it was last looked at
+         */
+        private int frequency() {
+            final int current = ages.get();
+            final int behind = current - aged;
+            if (behind > 0) {
+                // racing updates may lose a halving or a use, close enough for picking a victim
+                aged = current;
+                frequency.set(frequency.get() >> Math.min(behind, 31));
+            }
+            return frequency.get();
+        }
+
+        private void touch() {
+            lastUsed = nanoTime();
+            int count = frequency();
+            while (count < MAX_FREQUENCY && !frequency.compareAndSet(count, count + 1)) {
+                count = frequency.get();
+            }
+            recordUse();
+        }
+    }
+}
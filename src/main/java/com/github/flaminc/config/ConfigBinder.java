@@ -0,0 +1,33 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Binds a bean without reflection. Implementations are generated at compile time by
+ * {@link com.github.flaminc.config.processor.ConfigBinderProcessor} next to the bean class and named after it with a
+ * '_ConfigBinder' suffix. {@link ConfiguratorUtil#loadClass(com.typesafe.config.Config, Object)} picks them up when
+ * present and falls back to reflection otherwise.
+ */
+public interface ConfigBinder<E> {
+    /**
+     * Suffix added to the binary name of the bean class to get the name of its binder
+     */
+    public static final String SUFFIX = "_ConfigBinder";
+
+    /**
+     * Wire the {@link javax.annotation.Resource} fields of instance from config.
+     *
+     * @param util     Util to use to convert config values
+     * @param config   Config to read fields from, not empty
+     * @param instance Instance to wire
+     */
+    public void bind(@NotNull ConfiguratorUtil util, @NotNull Config config, @NotNull E instance);
+
+    /**
+     * Call the {@link javax.annotation.PostConstruct} methods of instance.
+     *
+     * @param instance Instance that was wired
+     */
+    public void postConstruct(@NotNull E instance);
+}
@@ -0,0 +1,110 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Paths that differ between two configs. Objects present on both sides are compared key by key so only the
+ * smallest changed subtrees are reported; anything else (values, lists, added or removed keys) is reported at its
+ * own path.
+ */
+class ConfigDiff {
+
+    private final Set<List<String>> changed;
+
+    private ConfigDiff(Set<List<String>> changed) {
+        this.changed = changed;
+    }
+
+    /**
+     * Compare two configs.
+     *
+     * @param before Config before change, null if there was none
+     * @param after  Config after change
+     * @return Changed paths
+     */
+    @NotNull
+    static ConfigDiff between(@Nullable Config before, @NotNull Config after) {
+        final Set<List<String>> changed = new LinkedHashSet<List<String>>();
+        if (before == null) {
+            changed.add(Collections.<String>emptyList());
+        } else {
+            compare(new ArrayList<String>(), before.root(), after.root(), changed);
+        }
+        return new ConfigDiff(changed);
+    }
+
+    private static void compare(List<String> path, ConfigValue before, ConfigValue after,
+                                Set<List<String>> changed) {
+        if (before != null && after != null && before.valueType() == ConfigValueType.OBJECT &&
+                after.valueType() == ConfigValueType.OBJECT) {
+            final ConfigObject beforeObject = (ConfigObject) before;
+            final ConfigObject afterObject = (ConfigObject) after;
+            final Set<String> keys = new LinkedHashSet<String>(beforeObject.keySet());
+            keys.addAll(afterObject.keySet());
+            for (String key : keys) {
+                path.add(key);
+                compare(path, beforeObject.get(key), afterObject.get(key), changed);
+                path.remove(path.size() - 1);
+            }
+        } else if (before == null ? after != null : !before.equals(after)) {
+            changed.add(Collections.unmodifiableList(new ArrayList<String>(path)));
+        }
+    }
+
+    /**
+     * @return True if nothing changed
+     */
+    boolean isEmpty() {
+        return changed.isEmpty();
+    }
+
+    /**
+     * @return Changed paths in rendered form, the root is rendered as an empty string
+     */
+    @NotNull
+    Set<String> getPaths() {
+        final Set<String> paths = new LinkedHashSet<String>();
+        for (List<String> path : changed) {
+            paths.add(path.isEmpty() ? "" : ConfigUtil.joinPath(path));
+        }
+        return paths;
+    }
+
+    /**
+     * Work out what changed under a path.
+     *
+     * @param path Path split in to keys
+     * @return Null if nothing under path changed, an empty set if the whole path changed, otherwise the keys directly
+     * under path that changed
+     */
+    @Nullable
+    Set<String> changedUnder(@NotNull List<String> path) {
+        Set<String> keys = null;
+        for (List<String> changedPath : changed) {
+            if (changedPath.size() <= path.size()) {
+                if (path.subList(0, changedPath.size()).equals(changedPath)) {
+                    // path itself or one of its parents changed
+                    return Collections.emptySet();
+                }
+            } else if (changedPath.subList(0, path.size()).equals(path)) {
+                if (keys == null) {
+                    keys = new LinkedHashSet<String>();
+                }
+                keys.add(changedPath.get(path.size()));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Java Flight Recorder events for binding and environment loading. Events are only created when a recording has
+ * their kind enabled, checked against an event type looked up once per kind; otherwise {@link #begin(int)} returns
+ * null without allocating. On runtimes without {@code jdk.jfr} every call is a no-op and the JFR classes are never
+ * loaded.
+ */
+class ConfigEvents {
+    static final int CONSTRUCT = 0;
+    static final int LOAD_CLASS = 1;
+    static final int RESOLVE_REFERENCE = 2;
+    static final int POST_CONSTRUCT = 3;
+    static final int ENVIRONMENT_PARSE = 4;
+    static final int ENVIRONMENT_RESOLVE = 5;
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private ConfigEvents() {
+
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Start timing an event.
+     *
+     * @param kind One of the kinds above
+     * @return Event to pass to {@link #end}, null if it is not being recorded
+     */
+    @Nullable
+    static Object begin(int kind) {
+        return AVAILABLE ? JfrEvents.begin(kind) : null;
+    }
+
+    /**
+     * Finish an event and commit it if the recording still wants it.
+     *
+     * @param event   Event from {@link #begin(int)}, may be null
+     * @param type    Bean class
+     * @param path    Config path, origin of the bean config, environment or {@link javax.annotation.PostConstruct}
+     *                method name
+     * @param handler Reference handler namespace
+     * @param failed  True if the operation threw
+     */
+    static void end(@Nullable Object event, @Nullable Class<?> type, @Nullable String path, @Nullable String handler,
+                    boolean failed) {
+        if (event != null) {
+            JfrEvents.end(event, type, path, handler, failed);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the current config along with beans built from it, for code that reads config on every request. Readers call
+ * {@link #get()}, a single volatile read with no locking, and use the returned {@link Snapshot} for as long as they
+ * need a consistent view. A snapshot never changes: an update builds new beans from the new config with a new
+ * {@link ConfiguratorUtil} and then swaps in a whole new snapshot, so readers see either all of the old values or all
+ * of the new ones.
+ * <p/>
+ * Updates are made one at a time. An update that fails to bind leaves the current snapshot in place. Listeners are
+ * told about each new snapshot on the thread that made it.
+ * <p/>
+ * Register the holder as a {@link ConfigReloader.Listener} to publish each reload:
+ * <pre>
+ * reloader.addListener(holder);
+ * </pre>
+ */
+public class ConfigHolder implements ConfigReloader.Listener {
+    private static final Logger log = LoggerFactory.getLogger(ConfigHolder.class);
+
+    /**
+     * Listener told about every snapshot published after the first.
+     */
+    public interface Listener {
+        /**
+         * @param previous Snapshot replaced
+         * @param current  Snapshot now returned by {@link #get()}
+         */
+        public void updated(@NotNull Snapshot previous, @NotNull Snapshot current);
+    }
+
+    /**
+     * Hold the environment config from {@link EnvironmentContext#getEnvConfig()}.
+     *
+     * @param handlers Reference handlers used for binding
+     * @return Holder with the environment config at version 1
+     */
+    @NotNull
+    public static ConfigHolder forEnvironment(@NotNull Map<String, ReferenceHandler> handlers) {
+        return new ConfigHolder(EnvironmentContext.getEnvConfig(), handlers);
+    }
+
+    private final Map<String, ReferenceHandler> handlers;
+
+    /**
+     * Bean types by path, only used by writers
+     */
+    private final Map<String, Class<?>> beanTypes = new LinkedHashMap<String, Class<?>>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    private volatile Snapshot current;
+
+    /**
+     * @param config   Resolved config to start with
+     * @param handlers Reference handlers used for binding
+     */
+    public ConfigHolder(@NotNull Config config, @NotNull Map<String, ReferenceHandler> handlers) {
+        this.handlers = new HashMap<String, ReferenceHandler>(handlers);
+        this.current = new Snapshot(1, config, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * @return Current snapshot, never changes once returned
+     */
+    @NotNull
+    public Snapshot get() {
+        return current;
+    }
+
+    /**
+     * Build a bean at path in this and every later snapshot. Publishes a new snapshot holding the bean.
+     *
+     * @param path Path of the bean config, empty for the root
+     * @param type Type of the bean
+     * @return Snapshot holding the bean
+     * @throws RuntimeException if the bean cannot be bound, nothing is published
+     */
+    @NotNull
+    public synchronized Snapshot register(@NotNull String path, @NotNull Class<?> type) {
+        final Class<?> previous = beanTypes.put(path, type);
+        try {
+            return publish(current.getConfig());
+        } catch (RuntimeException e) {
+            if (previous == null) {
+                beanTypes.remove(path);
+            } else {
+                beanTypes.put(path, previous);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Bind every registered bean from config and publish the result as the next version.
+     *
+     * @param config New resolved config
+     * @return Snapshot published
+     * @throws RuntimeException if a bean cannot be bound, the current snapshot is kept
+     */
+    @NotNull
+    public synchronized Snapshot update(@NotNull Config config) {
+        return publish(config);
+    }
+
+    private Snapshot publish(Config config) {
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config, handlers);
+        final Map<String, Object> beans = new HashMap<String, Object>((int) (beanTypes.size() / 0.75f) + 1);
+        for (Map.Entry<String, Class<?>> entry : beanTypes.entrySet()) {
+            final String path = entry.getKey();
+            final Object bean = path.isEmpty() ? util.construct(config, entry.getValue()) :
+                    util.getObject(config, path, entry.getValue());
+            beans.put(path, bean);
+        }
+        final Snapshot previous = current;
+        final Snapshot next = new Snapshot(previous.getVersion() + 1, config, Collections.unmodifiableMap(beans));
+        current = next;
+        log.debug("published config version {}", next.getVersion());
+        for (Listener listener : listeners) {
+            try {
+                listener.updated(previous, next);
+            } catch (RuntimeException e) {
+                log.error("Config listener failed for version " + next.getVersion(), e);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Publish the reloaded config. A reload whose beans cannot be bound is logged and the current snapshot kept.
+     */
+    @Override
+    public void reloaded(@NotNull Config config, @NotNull Set<String> changedPaths) {
+        try {
+            update(config);
+        } catch (RuntimeException e) {
+            log.error("Cannot bind reloaded config, keeping version " + current.getVersion(), e);
+        }
+    }
+
+    public void addListener(@NotNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NotNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Config and the beans built from it at one version.
+     */
+    public static class Snapshot {
+        private final long version;
+        private final Config config;
+        private final Map<String, Object> beans;
+
+        private Snapshot(long version, Config config, Map<String, Object> beans) {
+            this.version = version;
+            this.config = config;
+            this.beans = beans;
+        }
+
+        /**
+         * @return Version, one more than the snapshot replaced
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @NotNull
+        public Config getConfig() {
+            return config;
+        }
+
+        /**
+         * @param path Path the bean was registered at
+         * @param type Type of the bean
+         * @return Bean, null if config had nothing at path
+         * @throws IllegalArgumentException if no bean was registered at path
+         */
+        @Nullable
+        public <E> E getBean(@NotNull String path, @NotNull Class<E> type) {
+            final Object bean = beans.get(path);
+            if (bean == null && !beans.containsKey(path)) {
+                throw new IllegalArgumentException("No bean registered at path: " + path);
+            }
+            return type.cast(bean);
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{version=" + version + ", beans=" + beans.keySet() + "}";
+        }
+    }
+}
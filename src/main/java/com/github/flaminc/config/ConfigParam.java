@@ -0,0 +1,27 @@
+package com.github.flaminc.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the config key a constructor parameter is read from. When every parameter of a public constructor has one,
+ * {@link ConfiguratorUtil#construct(com.typesafe.config.Config, Class)} builds the bean by calling that constructor
+ * instead of setting fields, so beans can be immutable:
+ * <pre>
+ * public Route(&#64;ConfigParam("host") String host, &#64;ConfigParam("port") int port) {
+ * </pre>
+ * Classes compiled with {@code -parameters} and a single public constructor taking arguments do not need it, the
+ * parameter names are used as the keys.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface ConfigParam {
+    /**
+     * @return Config key of the parameter
+     */
+    String value();
+}
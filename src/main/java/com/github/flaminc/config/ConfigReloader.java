@@ -0,0 +1,388 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads an environment config from '.conf' files when they change and re-binds only the beans affected.
+ * <p/>
+ * The files are merged (first file wins) the same way {@link ConfigFactory#load()} merges application config, then
+ * resolved for the current environment with {@link EnvironmentContext}. Beans registered with
+ * {@link #bind(String, Object)} are tracked by path; on reload the old and new configs are compared and only the
+ * fields under changed paths, or pointing with '~ref: var.*' to a singleton whose config changed, are wired again,
+ * after which the {@link javax.annotation.PostConstruct} methods of those beans are called again. Beans under
+ * unchanged paths are not touched, and singletons whose config did not change are carried over, so a field re-bound
+ * to one gets the same instance as the beans that were not touched.
+ * <p/>
+ * The new values of every bean are built before any bean is changed, so a reload that cannot build a value leaves
+ * every bean as it was.
+ * <p/>
+ * When watching, file events are debounced so a burst of writes causes one reload.
+ */
+public class ConfigReloader implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ConfigReloader.class);
+
+    /**
+     * Listener told about every reload that changed something.
+     */
+    public interface Listener {
+        /**
+         * @param config       New environment config
+         * @param changedPaths Paths that changed, an empty string stands for the whole config
+         */
+        public void reloaded(@NotNull Config config, @NotNull Set<String> changedPaths);
+    }
+
+    /**
+     * Create a reloader that is only reloaded by calling {@link #reload()}.
+     *
+     * @param files    Config files, first file wins
+     * @param handlers Reference handlers used for binding
+     * @return Reloader with the files loaded
+     */
+    @NotNull
+    public static ConfigReloader forFiles(@NotNull List<File> files, @NotNull Map<String, ReferenceHandler> handlers) {
+        return new ConfigReloader(files, handlers);
+    }
+
+    /**
+     * Create a reloader that watches the files and reloads after they stop changing for debounce milliseconds.
+     *
+     * @param files          Config files, first file wins
+     * @param handlers       Reference handlers used for binding
+     * @param debounceMillis Quiet time after the last file event before reloading
+     * @return Reloader with the files loaded and watched
+     * @throws IOException if the files cannot be watched
+     */
+    @NotNull
+    public static ConfigReloader watch(@NotNull List<File> files, @NotNull Map<String, ReferenceHandler> handlers,
+                                       long debounceMillis) throws IOException {
+        final ConfigReloader reloader = new ConfigReloader(files, handlers);
+        reloader.startWatching(debounceMillis);
+        return reloader;
+    }
+
+    private final List<File> files;
+
+    private final Map<String, ReferenceHandler> handlers;
+
+    private final List<Binding> bindings = new CopyOnWriteArrayList<Binding>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    private volatile Config config;
+
+    private volatile ConfiguratorUtil util;
+
+    private WatchService watchService;
+
+    private ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> pending;
+
+    private ConfigReloader(List<File> files, Map<String, ReferenceHandler> handlers) {
+        this.files = new ArrayList<File>(files);
+        this.handlers = new HashMap<String, ReferenceHandler>(handlers);
+        this.config = load();
+        this.util = ConfiguratorUtil.withConfig(config, this.handlers);
+    }
+
+    /**
+     * @return Environment config from the last load
+     */
+    @NotNull
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @return Util over the config from the last load
+     */
+    @NotNull
+    public ConfiguratorUtil getUtil() {
+        return util;
+    }
+
+    /**
+     * Load instance from the config at path and keep it up to date on reload.
+     *
+     * @param path     Path of the bean config, empty for the root
+     * @param instance Instance to load
+     * @param <E>      Generic instance type.
+     * @return Instance passed in after loading for chaining calls
+     */
+    public synchronized <E> E bind(@NotNull String path, @NotNull E instance) {
+        final List<String> keys = path.isEmpty() ? Collections.<String>emptyList() : ConfigUtil.splitPath(path);
+        util.loadClass(configAt(config, path), instance);
+        bindings.add(new Binding(keys, path, instance));
+        return instance;
+    }
+
+    public void addListener(@NotNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Load the files again and re-bind the beans whose config changed.
+     *
+     * @return Changed paths, empty if nothing changed
+     */
+    @NotNull
+    public synchronized Set<String> reload() {
+        final Config previous = config;
+        final Config next = load();
+        final ConfigDiff diff = ConfigDiff.between(previous, next);
+        if (diff.isEmpty()) {
+            log.debug("config files changed but resolved config did not");
+            return Collections.emptySet();
+        }
+        final ConfiguratorUtil nextUtil = ConfiguratorUtil.withConfig(next, handlers);
+        keepUnchangedReferences(diff, next, util, nextUtil);
+        final List<ConfiguratorUtil.FieldUpdate> updates = new ArrayList<ConfiguratorUtil.FieldUpdate>();
+        for (Binding binding : bindings) {
+            final Config beanConfig = configAt(next, binding.path);
+            Set<String> fields = diff.changedUnder(binding.keys);
+            if (fields != null && fields.isEmpty()) {
+                // whole bean config changed, every field that was or is configured gets wired again
+                fields = new LinkedHashSet<String>(configAt(previous, binding.path).root().keySet());
+                fields.addAll(beanConfig.root().keySet());
+            } else {
+                fields = withChangedReferences(diff, next, beanConfig, fields);
+            }
+            if (fields == null) {
+                continue;
+            }
+            log.debug("re-binding fields {} of bean at '{}'", fields, binding.path);
+            updates.add(nextUtil.prepareFields(beanConfig, binding.instance, fields));
+        }
+        // every value is built, nothing can fail to convert from here on
+        for (ConfiguratorUtil.FieldUpdate update : updates) {
+            nextUtil.applyFields(update);
+        }
+        config = next;
+        util = nextUtil;
+
+        final Set<String> paths = diff.getPaths();
+        for (Listener listener : listeners) {
+            listener.reloaded(next, paths);
+        }
+        return paths;
+    }
+
+    /**
+     * Stop watching the files.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private Config load() {
+        Config merged = ConfigFactory.empty();
+        for (File file : files) {
+            merged = merged.withFallback(ConfigFactory.parseFile(file));
+        }
+        final Config appConfig = ConfigFactory.defaultOverrides()
+                .withFallback(merged)
+                .withFallback(ConfigFactory.defaultReference());
+        return EnvironmentContext.resolveEnvConfig(appConfig);
+    }
+
+    /**
+     * Hand the singletons built by the previous util to the next one when neither their config nor any singleton they
+     * point to changed, so beans re-bound to them share the instances the untouched beans already hold.
+     */
+    private static void keepUnchangedReferences(ConfigDiff diff, Config next, ConfiguratorUtil previousUtil,
+                                                ConfiguratorUtil nextUtil) {
+        for (Map.Entry<String, Object> entry : previousUtil.getBuiltReferences().entrySet()) {
+            final String refKey = entry.getKey();
+            if (diff.changedUnder(ConfigUtil.splitPath(refKey)) != null || !next.hasPath(refKey)
+                    || referencesChange(diff, next, next.getValue(refKey), new HashSet<String>())) {
+                continue;
+            }
+            nextUtil.keepReference(refKey, entry.getValue());
+        }
+    }
+
+    /**
+     * Add the fields of a bean that point to a singleton whose config changed, directly or through other singletons.
+     *
+     * @param fields Fields changed in the bean config, null if none
+     * @return Fields to wire again, null if none
+     */
+    private static Set<String> withChangedReferences(ConfigDiff diff, Config config, Config beanConfig,
+                                                     Set<String> fields) {
+        Set<String> found = fields;
+        for (Map.Entry<String, ConfigValue> entry : beanConfig.root().entrySet()) {
+            if (found != null && found.contains(entry.getKey())) {
+                continue;
+            }
+            if (referencesChange(diff, config, entry.getValue(), new HashSet<String>())) {
+                if (found == null || found == fields) {
+                    found = fields == null ? new LinkedHashSet<String>() : new LinkedHashSet<String>(fields);
+                }
+                found.add(entry.getKey());
+            }
+        }
+        return found;
+    }
+
+    private static boolean referencesChange(ConfigDiff diff, Config config, ConfigValue value, Set<String> visited) {
+        if (value.valueType() == ConfigValueType.OBJECT) {
+            final ConfigObject object = (ConfigObject) value;
+            final ConfigValue ref = object.get("~ref");
+            if (ref != null && ref.valueType() == ConfigValueType.STRING) {
+                final String refKey = (String) ref.unwrapped();
+                if (refKey.startsWith("var.") && visited.add(refKey)) {
+                    if (diff.changedUnder(ConfigUtil.splitPath(refKey)) != null) {
+                        return true;
+                    }
+                    if (config.hasPath(refKey) && referencesChange(diff, config, config.getValue(refKey), visited)) {
+                        return true;
+                    }
+                }
+            }
+            for (ConfigValue child : object.values()) {
+                if (referencesChange(diff, config, child, visited)) {
+                    return true;
+                }
+            }
+        } else if (value.valueType() == ConfigValueType.LIST) {
+            for (ConfigValue child : (ConfigList) value) {
+                if (referencesChange(diff, config, child, visited)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Config configAt(Config config, String path) {
+        if (path.isEmpty()) {
+            return config;
+        }
+        return config.hasPath(path) ? config.getConfig(path) : ConfigFactory.empty();
+    }
+
+    private synchronized void startWatching(final long debounceMillis) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        final Map<Path, Set<Path>> watched = new HashMap<Path, Set<Path>>();
+        for (File file : files) {
+            final Path path = file.getAbsoluteFile().toPath();
+            final Path directory = path.getParent();
+            if (!watched.containsKey(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watched.put(directory, new LinkedHashSet<Path>());
+            }
+            watched.get(directory).add(path.getFileName());
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "config-reloader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final WatchService service = watchService;
+        final Thread watcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final WatchKey key = service.take();
+                        final Set<Path> names = watched.get((Path) key.watchable());
+                        boolean relevant = false;
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            relevant |= event.context() == null || names.contains((Path) event.context());
+                        }
+                        key.reset();
+                        if (relevant) {
+                            scheduleReload(debounceMillis);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ClosedWatchServiceException e) {
+                    // closed, stop watching
+                }
+            }
+        }, "config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private synchronized void scheduleReload(long debounceMillis) {
+        if (scheduler == null) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Set<String> changed = reload();
+                    log.info("reloaded config, changed paths: {}", changed);
+                } catch (RuntimeException e) {
+                    log.error("Cannot reload config, keeping previous config", e);
+                }
+            }
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static class Binding {
+        private final List<String> keys;
+        private final String path;
+        private final Object instance;
+
+        private Binding(List<String> keys, String path, Object instance) {
+            this.keys = keys;
+            this.path = path;
+            this.instance = instance;
+        }
+    }
+}
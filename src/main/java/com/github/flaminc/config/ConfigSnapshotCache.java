@@ -0,0 +1,699 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigIncludeContext;
+import com.typesafe.config.ConfigIncluder;
+import com.typesafe.config.ConfigIncluderClasspath;
+import com.typesafe.config.ConfigIncluderFile;
+import com.typesafe.config.ConfigIncluderURL;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigOrigin;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigRenderOptions;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.impl.ConfigBridge;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the resolved environment config on disk so later starts skip parsing and resolving HOCON when nothing changed.
+ * <p/>
+ * A snapshot is found by the environment name, the config.resource, config.file and config.url system properties and
+ * the library and snapshot format versions. It holds a SHA-256 of everything the load that wrote it read: every file
+ * it parsed, including files pulled in with include, the list of application and reference resources the class
+ * loader sees, the system properties under 'all' and the environment section, and each system property and
+ * environment variable named by a substitution. All of them are checked again before the snapshot is used, so a stale
+ * snapshot is never read. Other properties and variables can change freely.
+ * <p/>
+ * The snapshot holds the resolved config as a compact tagged tree of its values, numbers with the text they were
+ * written in, read back through a memory mapped file without parsing HOCON. Origins (file and line of each value) are
+ * not kept. A snapshot that cannot be read is deleted and the config is loaded the normal way.
+ * <p/>
+ * The rendered config includes values substituted from system properties and environment variables, secrets
+ * included. Properties and variables themselves are only kept as hashes. Snapshot files are created readable by the
+ * owner only where the file system supports it; keep the directory private as well.
+ */
+public class ConfigSnapshotCache {
+    private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotCache.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MAGIC = 0x54435553;
+
+    /**
+     * Bump when the layout changes
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    private static final byte OBJECT = 'O';
+    private static final byte LIST = 'L';
+    private static final byte STRING = 'S';
+    private static final byte INT = 'I';
+    private static final byte LONG = 'J';
+    private static final byte DOUBLE = 'D';
+    private static final byte BOOLEAN = 'Z';
+    private static final byte NULL = 'N';
+
+    /**
+     * Version of this library, filtered in to the resource by the build
+     */
+    static final String LIBRARY_VERSION = loadVersion();
+
+    private static final String[] EXTENSIONS = {".conf", ".json", ".properties"};
+
+    private static final Pattern SUBSTITUTION = Pattern.compile("\\$\\{\\??\\s*([^}]*?)\\s*\\}");
+
+    /**
+     * Digest of a file, property or variable that is missing
+     */
+    private static final String MISSING = "-";
+
+    private final File directory;
+
+    /**
+     * @param directory Directory to keep snapshots in, created if missing
+     */
+    public ConfigSnapshotCache(@NotNull File directory) {
+        this.directory = directory;
+    }
+
+    private static String loadVersion() {
+        final Properties properties = new Properties();
+        try {
+            final InputStream in = ConfigSnapshotCache.class.getResourceAsStream("version.properties");
+            if (in != null) {
+                try {
+                    properties.load(in);
+                } finally {
+                    in.close();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot read library version", e);
+        }
+        return properties.getProperty("version", "unknown");
+    }
+
+    /**
+     * Config of the current environment, from a snapshot if there is one whose sources have not changed.
+     *
+     * @return Resolved environment config
+     * @see EnvironmentContext#resolveEnvConfig()
+     */
+    @NotNull
+    public Config resolveEnvConfig() {
+        final String environment = EnvironmentContext.getEnvironment();
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        final String key = computeKey(environment);
+
+        final File snapshot = new File(directory, "config-" + environment + "-" + key + ".bin");
+        if (snapshot.isFile()) {
+            final Config config = read(snapshot, key, loader);
+            if (config != null) {
+                log.debug("loaded config snapshot {}", snapshot);
+                return config;
+            }
+        }
+
+        final Sources sources = new Sources(loader);
+        final Config config = load(loader, environment, sources);
+        try {
+            write(snapshot, key, sources.digests(), config);
+            deleteStale(environment, snapshot);
+            log.debug("wrote config snapshot {}", snapshot);
+        } catch (IOException e) {
+            log.warn("Cannot write config snapshot " + snapshot, e);
+        }
+        return config;
+    }
+
+    private static String computeKey(String environment) {
+        final MessageDigest digest = newDigest();
+        update(digest, "format:" + FORMAT_VERSION);
+        update(digest, "version:" + LIBRARY_VERSION);
+        update(digest, "env:" + environment);
+        // these pick the application file, so each choice gets its own snapshot
+        update(digest, "resource:" + System.getProperty("config.resource"));
+        update(digest, "file:" + System.getProperty("config.file"));
+        update(digest, "url:" + System.getProperty("config.url"));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Load the same as {@link EnvironmentContext#resolveEnvConfig()}, noting what was read on the way.
+     */
+    private static Config load(ClassLoader loader, String environment, Sources sources) {
+        final ConfigParseOptions options = ConfigParseOptions.defaults().setClassLoader(loader).setIncluder(sources);
+        final Config application = parseApplication(loader, options, sources);
+        // the load below takes reference files from the config library, this parse only finds what they read
+        final Config reference = ConfigFactory.parseResourcesAnySyntax(loader, "reference", options);
+        sources.addAnySyntax("reference");
+        sources.addSubstitutions(application);
+        sources.addSubstitutions(reference);
+        // system properties are overrides, only the sections the environment config is made of matter
+        sources.add("overrides:all.");
+        sources.add("overrides:" + environment + ".");
+
+        final Config appConfig = ConfigFactory.load(loader, application, EnvironmentContext.ALLOW_UNRESOLVED);
+        return EnvironmentContext.resolveEnvConfig(appConfig, environment);
+    }
+
+    /**
+     * Parse the application file the same way the config library picks it.
+     */
+    private static Config parseApplication(ClassLoader loader, ConfigParseOptions options, Sources sources) {
+        final String resource = System.getProperty("config.resource");
+        final String file = System.getProperty("config.file");
+        final String url = System.getProperty("config.url");
+        if ((resource != null ? 1 : 0) + (file != null ? 1 : 0) + (url != null ? 1 : 0) > 1) {
+            throw new RuntimeException("You set more than one of config.file='" + file + "', config.url='" + url +
+                    "', config.resource='" + resource + "'; don't know which one to use!");
+        }
+        if (resource != null) {
+            final String name = resource.startsWith("/") ? resource.substring(1) : resource;
+            sources.addResources(name);
+            return ConfigFactory.parseResources(loader, name, options.setAllowMissing(false));
+        }
+        if (file != null) {
+            final File parsed = new File(file);
+            sources.add(parsed);
+            return ConfigFactory.parseFile(parsed, options.setAllowMissing(false));
+        }
+        if (url != null) {
+            final URL parsed;
+            try {
+                parsed = new URL(url);
+            } catch (MalformedURLException e) {
+                throw new RuntimeException("Bad URL in config.url system property: '" + url + "'", e);
+            }
+            sources.add(parsed);
+            return ConfigFactory.parseURL(parsed, options.setAllowMissing(false));
+        }
+        sources.addAnySyntax("application");
+        return ConfigFactory.parseResourcesAnySyntax(loader, "application", options);
+    }
+
+    /**
+     * Digest of what a dependency currently holds.
+     *
+     * @param loader     Class loader resources are found with
+     * @param dependency Kind and name, such as 'url:file:/app/application.conf'
+     * @return Hex digest, {@link #MISSING} if there is nothing
+     * @throws IOException if a file cannot be read
+     */
+    private static String current(ClassLoader loader, String dependency) throws IOException {
+        final int colon = dependency.indexOf(':');
+        final String kind = dependency.substring(0, colon);
+        final String name = dependency.substring(colon + 1);
+        if ("url".equals(kind)) {
+            return digestUrl(new URL(name));
+        } else if ("resources".equals(kind)) {
+            final MessageDigest digest = newDigest();
+            final Enumeration<URL> resources = loader == null ? ClassLoader.getSystemResources(name) :
+                    loader.getResources(name);
+            while (resources.hasMoreElements()) {
+                update(digest, resources.nextElement().toExternalForm());
+            }
+            return toHex(digest.digest());
+        } else if ("property".equals(kind)) {
+            return digestValue(System.getProperty(name));
+        } else if ("variable".equals(kind)) {
+            return digestValue(System.getenv(name));
+        } else if ("overrides".equals(kind)) {
+            final Properties properties = System.getProperties();
+            final Map<String, String> sorted = new TreeMap<String, String>();
+            for (String property : properties.stringPropertyNames()) {
+                if (property.startsWith(name)) {
+                    sorted.put(property, properties.getProperty(property));
+                }
+            }
+            final MessageDigest digest = newDigest();
+            for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                update(digest, entry.getKey());
+                update(digest, entry.getValue());
+            }
+            return toHex(digest.digest());
+        }
+        throw new IOException("Unknown snapshot dependency " + dependency);
+    }
+
+    private static String digestUrl(URL url) throws IOException {
+        final InputStream in;
+        try {
+            in = url.openStream();
+        } catch (FileNotFoundException e) {
+            return MISSING;
+        } catch (NoSuchFileException e) {
+            return MISSING;
+        }
+        final MessageDigest digest = newDigest();
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String digestValue(String value) {
+        if (value == null) {
+            return MISSING;
+        }
+        final MessageDigest digest = newDigest();
+        update(digest, value);
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        final byte[] bytes = value.getBytes(UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    @Nullable
+    private static Config read(File snapshot, String key, ClassLoader loader) {
+        try {
+            final RandomAccessFile file = new RandomAccessFile(snapshot, "r");
+            try {
+                final FileChannel channel = file.getChannel();
+                final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION ||
+                        !key.equals(readString(buffer))) {
+                    throw new IOException("Snapshot header does not match");
+                }
+                final int dependencies = buffer.getInt();
+                boolean current = true;
+                for (int i = 0; i < dependencies; i++) {
+                    final String dependency = readString(buffer);
+                    final String digest = readString(buffer);
+                    // read them all so a truncated snapshot is still found out
+                    if (current && !digest.equals(current(loader, dependency))) {
+                        log.debug("config snapshot {} is out of date, {} changed", snapshot, dependency);
+                        current = false;
+                    }
+                }
+                if (current) {
+                    if (buffer.get() != OBJECT) {
+                        throw new IOException("Snapshot root is not an object");
+                    }
+                    final ConfigObject root = readObject(buffer,
+                            ConfigBridge.newOrigin("snapshot " + snapshot.getName()));
+                    if (buffer.hasRemaining()) {
+                        throw new IOException("Trailing bytes after snapshot");
+                    }
+                    // values were resolved before they were written, nothing is left to substitute
+                    return root.toConfig();
+                }
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            log.warn("Cannot read config snapshot " + snapshot + ", loading without it", e);
+        } catch (BufferUnderflowException e) {
+            log.warn("Config snapshot {} is truncated, loading without it", snapshot);
+        } catch (RuntimeException e) {
+            log.warn("Cannot read config snapshot " + snapshot + ", loading without it", e);
+        }
+        if (!snapshot.delete()) {
+            log.warn("Cannot delete config snapshot {}", snapshot);
+        }
+        return null;
+    }
+
+    private static ConfigValue readValue(ByteBuffer buffer, ConfigOrigin origin) throws IOException {
+        final byte tag = buffer.get();
+        switch (tag) {
+            case OBJECT:
+                return readObject(buffer, origin);
+            case LIST:
+                final int size = buffer.getInt();
+                final List<ConfigValue> list = new ArrayList<ConfigValue>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer, origin));
+                }
+                return ConfigBridge.newList(origin, list);
+            case STRING:
+                return ConfigBridge.newScalar(origin, readString(buffer));
+            case INT:
+            case LONG:
+                final long number = tag == INT ? buffer.getInt() : buffer.getLong();
+                return ConfigBridge.newNumber(origin, number, readString(buffer));
+            case DOUBLE:
+                final double real = buffer.getDouble();
+                return ConfigBridge.newNumber(origin, real, readString(buffer));
+            case BOOLEAN:
+                return ConfigBridge.newScalar(origin, buffer.get() != 0);
+            case NULL:
+                return ConfigBridge.newScalar(origin, null);
+            default:
+                throw new IOException("Unknown tag " + tag + " in snapshot");
+        }
+    }
+
+    private static ConfigObject readObject(ByteBuffer buffer, ConfigOrigin origin) throws IOException {
+        final int size = buffer.getInt();
+        final Map<String, ConfigValue> object = new HashMap<String, ConfigValue>((int) (size / 0.75f) + 1);
+        for (int i = 0; i < size; i++) {
+            final String key = readString(buffer);
+            object.put(key, readValue(buffer, origin));
+        }
+        return ConfigBridge.newObject(origin, object);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private void write(File snapshot, String key, Map<String, String> digests, Config config) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        // write aside and move in to place so a reader never sees half a snapshot, created owner only where supported
+        final File temp = Files.createTempFile(directory.toPath(), "config-", ".tmp").toFile();
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, key);
+                out.writeInt(digests.size());
+                for (Map.Entry<String, String> entry : digests.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+                writeValue(out, config.root());
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                log.warn("Cannot delete {}", temp);
+            }
+        }
+    }
+
+    /**
+     * Write a value and everything under it. Numbers keep the text they were written with as well as their value,
+     * so 1.10 still reads back as the string 1.10.
+     */
+    private static void writeValue(DataOutputStream out, ConfigValue value) throws IOException {
+        switch (value.valueType()) {
+            case OBJECT:
+                final ConfigObject object = (ConfigObject) value;
+                out.writeByte(OBJECT);
+                out.writeInt(object.size());
+                for (Map.Entry<String, ConfigValue> entry : object.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+                break;
+            case LIST:
+                final ConfigList list = (ConfigList) value;
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (ConfigValue element : list) {
+                    writeValue(out, element);
+                }
+                break;
+            case STRING:
+                out.writeByte(STRING);
+                writeString(out, (String) value.unwrapped());
+                break;
+            case NUMBER:
+                final Object number = value.unwrapped();
+                if (number instanceof Integer) {
+                    out.writeByte(INT);
+                    out.writeInt((Integer) number);
+                } else if (number instanceof Long) {
+                    out.writeByte(LONG);
+                    out.writeLong((Long) number);
+                } else {
+                    out.writeByte(DOUBLE);
+                    out.writeDouble(((Number) number).doubleValue());
+                }
+                writeString(out, ConfigBridge.numberText(value));
+                break;
+            case BOOLEAN:
+                out.writeByte(BOOLEAN);
+                out.writeByte((Boolean) value.unwrapped() ? 1 : 0);
+                break;
+            case NULL:
+                out.writeByte(NULL);
+                break;
+            default:
+                throw new IOException("Cannot write value of type " + value.valueType());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void deleteStale(String environment, File current) {
+        final String prefix = "config-" + environment + "-";
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            final String name = file.getName();
+            // the key is a fixed length hex string, so 'qa' snapshots never match an environment such as 'qa-east'
+            if (!file.equals(current) && name.startsWith(prefix) && name.endsWith(".bin") &&
+                    name.length() == prefix.length() + 64 + 4) {
+                if (file.delete()) {
+                    log.debug("deleted stale config snapshot {}", file);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Snapshot files currently in the directory
+     */
+    @NotNull
+    List<File> getSnapshots() {
+        final File[] files = directory.listFiles();
+        final List<File> snapshots = new ArrayList<File>();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith("config-") && file.getName().endsWith(".bin")) {
+                    snapshots.add(file);
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Notes what a load read. Set as the includer so files pulled in with include are seen as they are parsed.
+     */
+    private static class Sources implements ConfigIncluder, ConfigIncluderFile, ConfigIncluderURL,
+            ConfigIncluderClasspath {
+        private final ClassLoader loader;
+
+        /**
+         * Kind and name of each dependency, kept sorted so the same load always writes the same snapshot
+         */
+        private final Set<String> dependencies = new TreeSet<String>();
+
+        private ConfigIncluder fallback;
+
+        private Sources(ClassLoader loader) {
+            this.loader = loader;
+        }
+
+        private void add(String dependency) {
+            dependencies.add(dependency);
+        }
+
+        private void add(URL url) {
+            add("url:" + url.toExternalForm());
+        }
+
+        private void add(File file) {
+            try {
+                add(file.getAbsoluteFile().toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Cannot make a URL of " + file, e);
+            }
+        }
+
+        /**
+         * Every resource of a name and the list of them, so one added later on the class path is seen too.
+         */
+        private void addResources(String name) {
+            add("resources:" + name);
+            try {
+                final Enumeration<URL> resources = loader == null ? ClassLoader.getSystemResources(name) :
+                        loader.getResources(name);
+                while (resources.hasMoreElements()) {
+                    add(resources.nextElement());
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot list resources named " + name, e);
+            }
+        }
+
+        private void addAnySyntax(String basename) {
+            for (String extension : EXTENSIONS) {
+                addResources(basename + extension);
+            }
+        }
+
+        /**
+         * Properties and variables named by substitutions, either can fill in a substitution the config does not.
+         *
+         * @param config Config parsed but not resolved
+         */
+        private void addSubstitutions(Config config) {
+            final Matcher matcher = SUBSTITUTION.matcher(config.root().render(ConfigRenderOptions.concise()));
+            while (matcher.find()) {
+                final String name = matcher.group(1).replace("\"", "");
+                add("property:" + name);
+                add("variable:" + name);
+            }
+        }
+
+        /**
+         * Files that values came from. Merges waiting on a substitution cannot be walked, the file they are in is
+         * found through the values around them.
+         */
+        private void addOrigins(ConfigValue value) {
+            final URL url = value.origin().url();
+            if (url != null) {
+                add(url);
+            }
+            try {
+                if (value instanceof ConfigObject) {
+                    for (ConfigValue child : ((ConfigObject) value).values()) {
+                        addOrigins(child);
+                    }
+                } else if (value instanceof ConfigList) {
+                    for (ConfigValue element : (ConfigList) value) {
+                        addOrigins(element);
+                    }
+                }
+            } catch (ConfigException.NotResolved e) {
+                log.trace("cannot walk unresolved value from {}", value.origin().description());
+            }
+        }
+
+        /**
+         * @return Current digest of each dependency
+         * @throws IOException if a file cannot be read
+         */
+        private Map<String, String> digests() throws IOException {
+            final Map<String, String> digests = new TreeMap<String, String>();
+            for (String dependency : dependencies) {
+                digests.put(dependency, current(loader, dependency));
+            }
+            return digests;
+        }
+
+        @Override
+        public ConfigIncluder withFallback(ConfigIncluder fallback) {
+            if (this.fallback == null) {
+                this.fallback = fallback;
+            }
+            return this;
+        }
+
+        @Override
+        public ConfigObject include(ConfigIncludeContext context, String what) {
+            final ConfigObject included = fallback.include(context, what);
+            addOrigins(included);
+            return included;
+        }
+
+        @Override
+        public ConfigObject includeFile(ConfigIncludeContext context, File what) {
+            // added up front so an included file that is missing now is noticed when it shows up
+            add(what);
+            final ConfigObject included = ((ConfigIncluderFile) fallback).includeFile(context, what);
+            addOrigins(included);
+            return included;
+        }
+
+        @Override
+        public ConfigObject includeURL(ConfigIncludeContext context, URL what) {
+            add(what);
+            final ConfigObject included = ((ConfigIncluderURL) fallback).includeURL(context, what);
+            addOrigins(included);
+            return included;
+        }
+
+        @Override
+        public ConfigObject includeResources(ConfigIncludeContext context, String what) {
+            addResources(what.startsWith("/") ? what.substring(1) : what);
+            final ConfigObject included = ((ConfigIncluderClasspath) fallback).includeResources(context, what);
+            addOrigins(included);
+            return included;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import com.typesafe.config.impl.ConfigBridge;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts single config values to Java values without boxing numbers on the way, following the conversions
+ * {@link com.typesafe.config.Config} does for its getters (numbers and booleans may be given as strings).
+ */
+class ConfigValues {
+
+    private ConfigValues() {
+
+    }
+
+    /**
+     * Look up the value at a path by walking the objects directly. A plain key, such as a field name, is a single
+     * map lookup and is not parsed as a path at all.
+     *
+     * @param object Object to start at
+     * @param path   Path to look up
+     * @return Value at path or null if it is missing or a config null, the same as
+     * {@link com.typesafe.config.Config#hasPath(String)} returning false
+     */
+    @Nullable
+    static ConfigValue valueAt(@NotNull ConfigObject object, @NotNull String path) {
+        ConfigValue value;
+        if (path.indexOf('.') < 0 && path.indexOf('"') < 0) {
+            value = object.get(path);
+        } else {
+            value = object;
+            for (String key : ConfigUtil.splitPath(path)) {
+                if (value == null || value.valueType() != ConfigValueType.OBJECT) {
+                    return null;
+                }
+                value = ((ConfigObject) value).get(key);
+            }
+        }
+        return value == null || value.valueType() == ConfigValueType.NULL ? null : value;
+    }
+
+    static int toInt(@NotNull ConfigValue value, @NotNull String where) {
+        return toInt(toLong(value, where), where);
+    }
+
+    static int toInt(long value, @NotNull String where) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new RuntimeException("Value " + value + " at " + where + " is out of range for an int");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decimals are truncated toward zero, as {@link com.typesafe.config.Config#getLong(String)} and
+     * {@link com.typesafe.config.Config#getInt(String)} do, so 1.5 is 1.
+     */
+    static long toLong(@NotNull ConfigValue value, @NotNull String where) {
+        if (value.valueType() == ConfigValueType.NUMBER) {
+            return ConfigBridge.longValue(value);
+        } else if (value.valueType() == ConfigValueType.STRING) {
+            final String text = (String) value.unwrapped();
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                // may be a decimal
+            }
+            try {
+                return (long) Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new RuntimeException("Expected a whole number at " + where + " but was '" + value.unwrapped() + "'");
+    }
+
+    static double toDouble(@NotNull ConfigValue value, @NotNull String where) {
+        if (value.valueType() == ConfigValueType.NUMBER) {
+            return ConfigBridge.doubleValue(value);
+        } else if (value.valueType() == ConfigValueType.STRING) {
+            try {
+                return Double.parseDouble((String) value.unwrapped());
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new RuntimeException("Expected a number at " + where + " but was '" + value.unwrapped() + "'");
+    }
+
+    static boolean toBoolean(@NotNull ConfigValue value, @NotNull String where) {
+        if (value.valueType() == ConfigValueType.BOOLEAN) {
+            return (Boolean) value.unwrapped();
+        } else if (value.valueType() == ConfigValueType.STRING) {
+            final String text = (String) value.unwrapped();
+            if ("true".equals(text) || "yes".equals(text) || "on".equals(text)) {
+                return true;
+            } else if ("false".equals(text) || "no".equals(text) || "off".equals(text)) {
+                return false;
+            }
+        }
+        throw new RuntimeException("Expected a boolean at " + where + " but was '" + value.unwrapped() + "'");
+    }
+
+    @NotNull
+    static String toText(@NotNull ConfigValue value, @NotNull String where) {
+        switch (value.valueType()) {
+            case STRING:
+                return (String) value.unwrapped();
+            case NUMBER:
+                // as written, such as 1.10 or 08080, the same as Config.getString
+                return ConfigBridge.numberText(value);
+            case BOOLEAN:
+                return String.valueOf(value.unwrapped());
+            default:
+                throw new RuntimeException("Expected a string at " + where + " but was " + value.valueType());
+        }
+    }
+}
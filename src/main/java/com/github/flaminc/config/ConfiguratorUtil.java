@@ -2,20 +2,35 @@ package com.github.flaminc.config;
 
 import com.typesafe.config.*;
 import com.typesafe.config.impl.ConfigBridge;
-import org.apache.commons.lang3.reflect.ConstructorUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.Resource;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * @author Chris Flaming 1/8/2015
@@ -42,22 +57,62 @@ public class ConfiguratorUtil {
         return configuratorUtil;
     }
 
-    private final Map<String, Object> references;
+    private final ReferenceRegistry references = new ReferenceRegistry();
 
     private final Config root;
 
-    private final Map<String, ReferenceHandler> refHandler = new HashMap<String, ReferenceHandler>();
+    private final Map<String, ReferenceHandler> refHandler = new ConcurrentHashMap<String, ReferenceHandler>();
+
+    private final TypeResolver typeResolver = new TypeResolver();
+
+    private volatile boolean lazyReferences = false;
+
+    private volatile BindingMetrics metrics = BindingMetrics.NONE;
+
+    /**
+     * How long to wait on an {@link AsyncReferenceHandler} when no timeout was set for it
+     */
+    public static final long DEFAULT_HANDLER_TIMEOUT_MILLIS = 30000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, Long> handlerTimeouts = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * References started ahead for the outermost bean being loaded on this thread
+     */
+    private final ThreadLocal<ReferencePrefetch> prefetching = new ThreadLocal<ReferencePrefetch>();
+
+    /**
+     * Field values built ahead that a generated binder on this thread is setting
+     */
+    private final ThreadLocal<FieldUpdate> applying = new ThreadLocal<FieldUpdate>();
+
+    /**
+     * True if a sub class chose its own maps through {@link #createMap()}
+     */
+    private final boolean customMaps = overridesCreateMap(getClass());
 
     private ConfiguratorUtil() {
-        references = new HashMap<String, Object>();
         root = ConfigFactory.empty();
     }
 
     private ConfiguratorUtil(Config rootConfig) {
-        references = new HashMap<String, Object>();
         root = rootConfig;
     }
 
+    private static boolean overridesCreateMap(Class<?> type) {
+        for (Class<?> current = type; current != ConfiguratorUtil.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("createMap");
+                return true;
+            } catch (NoSuchMethodException e) {
+                // look at the super class
+            }
+        }
+        return false;
+    }
+
     /**
      * Constructor from root config
      *
@@ -73,26 +128,69 @@ public class ConfiguratorUtil {
      * Uses the constructor of the specified fieldType and data at config to construct a new class. If a '~ref' field
      * is provided, then the object will use the singleton at the provided reference. The '~constructor'
      * field is mandatory (if not '~ref' field) and values consists of a list of constructor values. The '~type' key will
-     * be used if the fieldType is set to null; otherwise, it will be ignored.
+     * be used if the fieldType is set to null; otherwise, it will be ignored. A '~lazy: true' key next to '~ref' delays
+     * resolving the reference until a method is called on it, when the fieldType is an interface.
      *
      * @param config    Configuration to use to look up keys. Otherwise root config is used.
      * @param fieldType Type of object to call constructor on. If null, then config is consulted with '~type' key.
      * @return Newly constructed class
      */
     public <E> E construct(@Nullable Config config, @Nullable Class<E> fieldType) {
+        return construct(config, fieldType, fieldType);
+    }
+
+    /**
+     * @param genericType Declared type of fieldType with its type arguments, such as {@code Map<Integer, Integer>}
+     */
+    private <E> E construct(@Nullable Config config, @Nullable Class<E> fieldType, @Nullable Type genericType) {
+        final BindingMetrics metrics = this.metrics;
+        final Object event = ConfigEvents.begin(ConfigEvents.CONSTRUCT);
+        if (event == null && !metrics.isEnabled()) {
+            return constructNow(config, fieldType, genericType);
+        }
+        final long start = System.nanoTime();
+        boolean failed = true;
+        E instance = null;
+        try {
+            instance = constructNow(config, fieldType, genericType);
+            failed = false;
+            return instance;
+        } finally {
+            final Class<?> type = instance == null ? fieldType : instance.getClass();
+            if (metrics.isEnabled()) {
+                metrics.operation(BindingMetrics.Operation.CONSTRUCT, type, null, System.nanoTime() - start, failed);
+            }
+            ConfigEvents.end(event, type, describe(config), null, failed);
+        }
+    }
+
+    /**
+     * @return Where config came from, the file and line of a bean when it was parsed from one, so events of beans
+     * built without a known path can be told apart
+     */
+    @Nullable
+    private String describe(@Nullable Config config) {
+        final Config described = config == null ? root : config;
+        return described == null ? null : described.origin().description();
+    }
+
+    private <E> E constructNow(@Nullable Config config, @Nullable Class<E> fieldType, @Nullable Type genericType) {
         if (config == null) {
             config = root;
         }
+        final ConfigObject object = config.root();
         // is this a reference?
-        if (config.hasPath("~ref")) {
+        if (ConfigValues.valueAt(object, "~ref") != null) {
             return resolveReference(config, fieldType);
         }
 
         final List<ConfigValue> args;
         // either constructor route or bean route
         final boolean constructorRoute;
-        if (config.hasPath("~constructor")) {
-            args = config.getList("~constructor");
+        final ConfigValue constructorArgs = ConfigValues.valueAt(object, "~constructor");
+        if (constructorArgs != null) {
+            args = constructorArgs.valueType() == ConfigValueType.LIST ? (ConfigList) constructorArgs :
+                    config.getList("~constructor");
             constructorRoute = true;
         } else {
             args = Collections.emptyList();
@@ -102,6 +200,7 @@ public class ConfiguratorUtil {
         if (fieldType == null || hasType(config)) {
             // look up field type from config
             fieldType = getType(config);
+            genericType = fieldType;
         }
         Object[] callArgs = new Object[args.size()];
         Class<?>[] argTypes = new Class<?>[args.size()];
@@ -112,20 +211,32 @@ public class ConfiguratorUtil {
             } catch (ValueTypeException e) {
                 throw new RuntimeException("Cannot convert constructor position " + i + " with value arg");
             }
-            argTypes[i] = callArgs[i].getClass();
+            argTypes[i] = callArgs[i] == null ? null : callArgs[i].getClass();
         }
         try {
             final E instance;
 
-            if (!constructorRoute && fieldType == Map.class) {
+            final Class<?> primitiveMap = constructorRoute || fieldType == null ? null :
+                    PrimitiveMaps.supports(fieldType) ? fieldType : null;
+            if (primitiveMap != null) {
+                instance = (E) PrimitiveMaps.fromObject(this, config.root(), primitiveMap, genericType);
+            } else if (!constructorRoute && fieldType == Map.class) {
                 // handle map
-                Map<Object, Object> map = createMap();
-
                 final Set<Map.Entry<String, ConfigValue>> entries = ConfigBridge.getEntries(config);
+                Map<Object, Object> map = createMap(entries.size());
+                final Type keyType = GenericTypes.argument(genericType, 0);
+                final Type valueType = GenericTypes.argument(genericType, 1);
+
                 for (Map.Entry<String, ConfigValue> entry : entries) {
                     final ConfigValue value = entry.getValue();
+                    final Object key = convertKey(entry.getKey(), keyType);
+                    if (!GenericTypes.isUntyped(valueType)) {
+                        map.put(key, convertValue(value, GenericTypes.rawClass(valueType), valueType,
+                                "key '" + entry.getKey() + "'"));
+                        continue;
+                    }
                     try {
-                        map.put(entry.getKey(), inferObject(value));
+                        map.put(key, inferObject(value));
                     } catch (ValueTypeException e) {
                         throw new RuntimeException("Cannot convert value '" + value + "' for key '" +
                                 entry.getKey() + "'");
@@ -133,8 +244,12 @@ public class ConfiguratorUtil {
                 }
 
                 instance = (E) map;
+            } else if (!constructorRoute && fieldType != null && BindingPlan.of(fieldType).getCreator() != null) {
+                // values go in to the constructor, nothing left to set on most beans
+                return loadBean(config, fieldType, null);
             } else {
-                final Constructor<E> constructor = ConstructorUtils.getMatchingAccessibleConstructor(fieldType, argTypes);
+                final ConstructorResolver.ResolvedConstructor<E> constructor =
+                        ConstructorResolver.resolve(fieldType, argTypes);
                 if (constructor == null) {
                     throw new IllegalArgumentException("Cannot find constructor of types: " + Arrays.toString(argTypes) +
                             " for " + fieldType);
@@ -155,11 +270,62 @@ public class ConfiguratorUtil {
         }
     }
 
+    /**
+     * Build a bean by passing its values to the constructor found by the plan, then wire any fields not passed in,
+     * through the generated binder of the bean if it has one.
+     */
+    private <E> E create(ConfigObject object, BindingPlan plan) {
+        final BindingPlan.Creator creator = plan.getCreator();
+        final String[] paths = creator.getPaths();
+        final Class<?>[] types = creator.getTypes();
+        final Type[] genericTypes = creator.getGenericTypes();
+        final Object[] args = new Object[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            final ConfigValue value = ConfigValues.valueAt(object, paths[i]);
+            if (value != null) {
+                args[i] = convertValue(value, types[i], genericTypes[i], "path: " + paths[i]);
+            } else if (types[i].isPrimitive()) {
+                throw new RuntimeException("Missing path: " + paths[i] + " for primitive constructor parameter of " +
+                        plan.getType().getName());
+            }
+        }
+        final E instance;
+        try {
+            instance = (E) creator.getConstructor().newInstance(args);
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException(e);
+        } catch (InstantiationException e) {
+            throw new IllegalArgumentException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+        final ConfigBinder<Object> binder = plan.getBinder();
+        if (binder != null) {
+            ConfigObject remaining = object;
+            for (String path : paths) {
+                remaining = remaining.withoutKey(path);
+            }
+            if (!remaining.isEmpty()) {
+                binder.bind(this, remaining.toConfig(), instance);
+            }
+            postConstruct(binder, instance);
+            return instance;
+        }
+        for (BindingPlan.WiredField wired : plan.getRemainingFields()) {
+            final ConfigValue value = ConfigValues.valueAt(object, wired.getPath());
+            if (value != null) {
+                wireField(instance, wired, value);
+            }
+        }
+        postConstruct(plan, instance);
+        return instance;
+    }
+
     private <E> Class<E> getType(Config config) {
         Class<E> fieldType;
         final String type = config.getString("~type");
         try {
-            fieldType = (Class<E>) Class.forName(type);
+            fieldType = typeResolver.resolve(type);
         } catch (ClassNotFoundException e) {
             throw new IllegalArgumentException(e);
         }
@@ -167,26 +333,57 @@ public class ConfiguratorUtil {
     }
 
     private boolean hasType(Config config) {
-        return config.hasPath("~type");
+        return ConfigValues.valueAt(config.root(), "~type") != null;
     }
 
-    private <E> E resolveReference(@NotNull Config config, @Nullable Class<E> fieldType) {
-        final String refKey = config.getString("~ref");
-        Pair<String, String> split = ConfigBridge.pathToFirstRest(refKey);
-
+    private <E> E resolveReference(@NotNull final Config config, @Nullable Class<E> fieldType) {
         if (fieldType == null && hasType(config)) {
             fieldType = getType(config);
         }
+        if (fieldType != null && fieldType.isInterface() && isLazy(config)) {
+            // resolve on first method call
+            final Class<E> type = fieldType;
+            return LazyReference.create(type, new Callable<E>() {
+                @Override
+                public E call() {
+                    return resolveReferenceNow(config, type);
+                }
+            });
+        }
+        return resolveReferenceNow(config, fieldType);
+    }
+
+    boolean isLazy(Config config) {
+        return config.hasPath("~lazy") ? config.getBoolean("~lazy") : lazyReferences;
+    }
+
+    private <E> E resolveReferenceNow(@NotNull Config config, @Nullable Class<E> fieldType) {
+        final ConfigValue ref = ConfigValues.valueAt(config.root(), "~ref");
+        final String refKey = ref == null ? config.getString("~ref") : ConfigValues.toText(ref, "path: ~ref");
+        Pair<String, String> split = ConfigBridge.pathToFirstRest(refKey);
+
+        final Object event = ConfigEvents.begin(ConfigEvents.RESOLVE_REFERENCE);
+        if (event == null) {
+            return dispatchReference(refKey, split, config, fieldType);
+        }
+        boolean failed = true;
+        E resolved = null;
+        try {
+            resolved = dispatchReference(refKey, split, config, fieldType);
+            failed = false;
+            return resolved;
+        } finally {
+            ConfigEvents.end(event, resolved == null ? fieldType : resolved.getClass(), refKey, split.getLeft(),
+                    failed);
+        }
+    }
+
+    private <E> E dispatchReference(@NotNull String refKey, @NotNull Pair<String, String> split,
+                                    @NotNull Config config, @Nullable Class<E> fieldType) {
         final String handlerKey = split.getLeft();
         if ("var".equals(handlerKey)) {
             // look it up as its in the default namespace ('var')
-            if (references.containsKey(refKey)) {
-                return (E) references.get(refKey);
-            } else {
-                final E obj = getObject(root, refKey, fieldType);
-                references.put(refKey, obj);
-                return obj;
-            }
+            return getSingleton(refKey, fieldType);
         } else {
             // pass the keys to the handler registered for it
             final ReferenceHandler handler = refHandler.get(handlerKey);
@@ -194,8 +391,8 @@ public class ConfiguratorUtil {
                 throw new RuntimeException("Cannot find reference handler named: '" + handlerKey + "'");
             }
 
-            final E resolve = handler.resolve(refKey, split.getRight(), config, fieldType);
-            if (fieldType.isPrimitive() && resolve == null) {
+            final E resolve = resolveWithHandler(handlerKey, handler, refKey, split.getRight(), config, fieldType);
+            if (fieldType != null && fieldType.isPrimitive() && resolve == null) {
                 throw new RuntimeException(String.format("Primitive type %s cannot resolve to null from handler " +
                                 "for reference key %s sent to '%s' handler with type %s",
                         fieldType, refKey, handlerKey, handler.getClass().getName()));
@@ -204,11 +401,332 @@ public class ConfiguratorUtil {
         }
     }
 
+    private <E> E resolveWithHandler(String handlerKey, ReferenceHandler handler, String refKey, String keyStr,
+                                     Config config, Class<E> fieldType) {
+        final BindingMetrics metrics = this.metrics;
+        if (!metrics.isEnabled()) {
+            return callHandler(handlerKey, handler, refKey, keyStr, config, fieldType);
+        }
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final E resolved = callHandler(handlerKey, handler, refKey, keyStr, config, fieldType);
+            failed = false;
+            return resolved;
+        } finally {
+            metrics.reference(handlerKey, System.nanoTime() - start, failed);
+        }
+    }
+
+    private <E> E callHandler(String handlerKey, ReferenceHandler handler, String refKey, String keyStr,
+                              Config config, Class<E> fieldType) {
+        final ReferencePrefetch prefetch = prefetching.get();
+        if (prefetch != null) {
+            final CompletableFuture<Object> started = prefetch.take(config.root(), fieldType);
+            if (started != null) {
+                return (E) awaitReference(handlerKey, refKey, started);
+            }
+        }
+        if (handler instanceof AsyncReferenceHandler) {
+            return (E) awaitReference(handlerKey, refKey,
+                    startAsync((AsyncReferenceHandler) handler, refKey, keyStr, config, fieldType));
+        }
+        return handler.resolve(refKey, keyStr, config, fieldType);
+    }
+
+    /**
+     * Start resolving a reference on the reference executor. Cancelling the result, as a timeout does, cancels the
+     * future the handler returned as well, and a reference cancelled before it starts never calls the handler.
+     */
+    CompletableFuture<Object> startAsync(@NotNull final AsyncReferenceHandler handler, @NotNull final String refKey,
+                                         @NotNull final String keyStr, @NotNull final Config config,
+                                         @Nullable final Class<?> fieldType) {
+        final CompletableFuture<Object> result = new CompletableFuture<Object>();
+        ReferencePrefetch.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (result.isDone()) {
+                    return;
+                }
+                final CompletableFuture<?> future;
+                try {
+                    future = handler.resolveAsync(refKey, keyStr, config, fieldType);
+                    future.whenComplete(new BiConsumer<Object, Throwable>() {
+                        @Override
+                        public void accept(Object value, Throwable failure) {
+                            if (failure == null) {
+                                result.complete(value);
+                            } else if (failure instanceof CompletionException && failure.getCause() != null) {
+                                result.completeExceptionally(failure.getCause());
+                            } else {
+                                result.completeExceptionally(failure);
+                            }
+                        }
+                    });
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                result.whenComplete(new BiConsumer<Object, Throwable>() {
+                    @Override
+                    public void accept(Object value, Throwable failure) {
+                        if (result.isCancelled()) {
+                            future.cancel(true);
+                        }
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    private Object awaitReference(String handlerKey, String refKey, CompletableFuture<Object> future) {
+        final Long timeout = handlerTimeouts.get(handlerKey);
+        final long millis = timeout == null ? DEFAULT_HANDLER_TIMEOUT_MILLIS : timeout;
+        try {
+            return future.get(millis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException("Reference handler '" + handlerKey + "' did not resolve '" + refKey +
+                    "' within " + millis + " ms");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Reference handler '" + handlerKey + "' failed to resolve '" + refKey + "'",
+                    e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for reference '" + refKey + "'", e);
+        }
+    }
+
+    /**
+     * Get singleton in the default namespace ('var'), building it from root config on first use. Once built, a
+     * lookup with metrics off creates nothing.
+     */
+    private <E> E getSingleton(@NotNull final String refKey, @Nullable final Class<E> fieldType) {
+        final BindingMetrics metrics = this.metrics;
+        if (!metrics.isEnabled()) {
+            final Object built = references.getBuilt(refKey);
+            if (built != ReferenceRegistry.NOT_BUILT) {
+                return (E) built;
+            }
+            return references.get(refKey, new Callable<E>() {
+                @Override
+                public E call() {
+                    return getObject(root, refKey, fieldType);
+                }
+            });
+        }
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final E singleton = references.get(refKey, new Callable<E>() {
+                @Override
+                public E call() {
+                    return getObject(root, refKey, fieldType);
+                }
+            });
+            failed = false;
+            return singleton;
+        } finally {
+            metrics.reference("var", System.nanoTime() - start, failed);
+            metrics.registrySize(references.size());
+        }
+    }
+
+    /**
+     * Construct every bean under path of the root config on the common fork join pool.
+     *
+     * @param path Path holding the beans, such as 'var'
+     * @return Beans by reference key
+     * @see ConfiguratorUtil#constructParallel(String, java.util.concurrent.Executor)
+     */
+    @NotNull
+    public Map<String, Object> constructParallel(@NotNull String path) {
+        return constructParallel(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct every bean under path of the root config, building beans that do not reference each other in
+     * parallel. The children of path are scanned for '~ref' keys pointing at their siblings and each bean is started
+     * once the beans it references are done. Beans are registered as singletons, the same as if they were looked up
+     * with '~ref', so references to them elsewhere get the same instance.
+     *
+     * @param path     Path holding the beans, such as 'var'
+     * @param executor Executor to build beans on
+     * @return Beans by reference key (such as 'var.client')
+     * @throws RuntimeException with the full path if the beans reference each other in a cycle
+     */
+    @NotNull
+    public Map<String, Object> constructParallel(@NotNull String path, @NotNull final Executor executor) {
+        final ReferenceGraph graph = ReferenceGraph.scan(root, path);
+        final List<ConfigValue> values = new ArrayList<ConfigValue>();
+        for (String node : graph.getNodes()) {
+            values.add(root.getValue(node));
+        }
+        final ReferencePrefetch started = startPrefetch(values, null);
+        try {
+            return constructParallel(graph, executor, sharedPrefetch(started));
+        } finally {
+            if (started != null) {
+                started.cancelRemaining();
+            }
+        }
+    }
+
+    private Map<String, Object> constructParallel(ReferenceGraph graph, Executor executor,
+                                                  final ReferencePrefetch prefetch) {
+        final Map<String, CompletableFuture<Object>> futures = new HashMap<String, CompletableFuture<Object>>();
+        for (final String node : graph.order()) {
+            final Set<String> dependencies = graph.getDependencies(node);
+            final CompletableFuture<?>[] waitFor = new CompletableFuture<?>[dependencies.size()];
+            int i = 0;
+            for (String dependency : dependencies) {
+                waitFor[i++] = futures.get(dependency);
+            }
+            futures.put(node, CompletableFuture.allOf(waitFor).thenApplyAsync(new Function<Void, Object>() {
+                @Override
+                public Object apply(Void ignored) {
+                    final ReferencePrefetch previous = enterPrefetch(prefetch);
+                    try {
+                        return getSingleton(node, null);
+                    } finally {
+                        exitPrefetch(previous);
+                    }
+                }
+            }, executor));
+        }
+
+        final Map<String, Object> beans = new LinkedHashMap<String, Object>();
+        for (String node : graph.getNodes()) {
+            try {
+                beans.put(node, futures.get(node).join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return beans;
+    }
+
+    /**
+     * Bind every entry of a list to the same type on the common fork join pool.
+     *
+     * @see ConfiguratorUtil#bindAll(ConfigList, Class, ForkJoinPool)
+     */
+    @NotNull
+    public <E> List<E> bindAll(@NotNull ConfigList list, @NotNull Class<E> type) {
+        return bindAll(list, type, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Bind every entry of a list to the same type, such as a long list of routes. The type is looked up once for the
+     * whole list instead of for each entry, and entries are bound in parallel chunks. Each entry is bound the same as
+     * {@link #construct(Config, Class)} would, or converted when it is a plain value.
+     *
+     * @param list Entries to bind
+     * @param type Type of every entry
+     * @param pool Pool to bind chunks on
+     * @return Bound entries in list order, fixed in size
+     * @throws RuntimeException naming the list position of the first entry that failed
+     */
+    @NotNull
+    public <E> List<E> bindAll(@NotNull ConfigList list, @NotNull Class<E> type, @NotNull ForkJoinPool pool) {
+        final Object[] bound = new BulkBinder<E>(this, type).bind(list, null, pool);
+        return (List<E>) Arrays.asList(bound);
+    }
+
+    /**
+     * Bind every value of an object to the same type on the common fork join pool.
+     *
+     * @see ConfiguratorUtil#bindAll(ConfigObject, Class, ForkJoinPool)
+     */
+    @NotNull
+    public <E> Map<String, E> bindAll(@NotNull ConfigObject object, @NotNull Class<E> type) {
+        return bindAll(object, type, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Bind every value of an object to the same type, such as tenants by name. The type is looked up once for the
+     * whole object instead of for each value, and values are bound in parallel chunks. Each value is bound the same as
+     * {@link #construct(Config, Class)} would, or converted when it is a plain value.
+     *
+     * @param object Values to bind by key
+     * @param type   Type of every value
+     * @param pool   Pool to bind chunks on
+     * @return Bound values by key, sized for every key
+     * @throws RuntimeException naming the key of the first value that failed
+     */
+    @NotNull
+    public <E> Map<String, E> bindAll(@NotNull ConfigObject object, @NotNull Class<E> type,
+                                      @NotNull ForkJoinPool pool) {
+        final String[] keys = new String[object.size()];
+        final List<ConfigValue> values = new ArrayList<ConfigValue>(object.size());
+        int i = 0;
+        for (Map.Entry<String, ConfigValue> entry : object.entrySet()) {
+            keys[i++] = entry.getKey();
+            values.add(entry.getValue());
+        }
+        final Object[] bound = new BulkBinder<E>(this, type).bind(values, keys, pool);
+        final Map<String, E> map = new HashMap<String, E>((int) (keys.length / 0.75f) + 1);
+        for (i = 0; i < keys.length; i++) {
+            map.put(keys[i], (E) bound[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Bind the elements of the list in a file one at a time, without reading the whole file.
+     *
+     * @param file File holding a list, such as {@code [{name: a}, {name: b}]}
+     * @param type Type of every element
+     * @return Beans in file order, close it if not read to the end
+     * @throws RuntimeException if the file cannot be opened
+     * @see ConfiguratorUtil#iterateList(InputStream, Class)
+     */
+    @NotNull
+    public <E> BeanIterator<E> iterateList(@NotNull File file, @NotNull Class<E> type) {
+        final InputStream in;
+        try {
+            in = new FileInputStream(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open " + file, e);
+        }
+        return new BeanIterator<E>(this, type, new BufferedReader(new InputStreamReader(in, UTF_8)), file.getPath());
+    }
+
+    /**
+     * Bind the elements of a list one at a time as they are read, so a document too large to hold as a
+     * {@link Config} can be bound. Each element is parsed on its own and bound the same as
+     * {@link #construct(Config, Class)} would, or converted when it is a plain value.
+     *
+     * @param in   UTF-8 document holding a list, closed once the list is read
+     * @param type Type of every element
+     * @return Beans in document order, close it if not read to the end
+     */
+    @NotNull
+    public <E> BeanIterator<E> iterateList(@NotNull InputStream in, @NotNull Class<E> type) {
+        return new BeanIterator<E>(this, type, new BufferedReader(new InputStreamReader(in, UTF_8)), "stream");
+    }
+
     public <E> E constructFromList(@NotNull ConfigList list, Class<E> fieldType) {
+        return constructFromList(list, fieldType, fieldType);
+    }
+
+    /**
+     * @param genericType Declared type of fieldType with its type arguments, such as {@code List<Integer>}
+     */
+    private <E> E constructFromList(@NotNull ConfigList list, Class<E> fieldType, @Nullable Type genericType) {
 
+        if (PrimitiveMaps.supports(fieldType)) {
+            return (E) PrimitiveMaps.fromList(this, list, fieldType, genericType);
+        }
         if (fieldType == Map.class) {
             // handle map
-            Map<Object, Object> map = createMap();
+            Map<Object, Object> map = createMap(list.size() / 2);
+            final Type keyType = GenericTypes.argument(genericType, 0);
+            final Type valueType = GenericTypes.argument(genericType, 1);
 
             if (list.size() % 2 != 0) {
                 throw new RuntimeException("Map must have list with even number of entries");
@@ -217,13 +735,16 @@ public class ConfiguratorUtil {
                 Object key;
                 Object value;
                 try {
-                    key = inferObject(list.get(i));
+                    key = GenericTypes.isUntyped(keyType) ? inferObject(list.get(i)) :
+                            convertValue(list.get(i), GenericTypes.rawClass(keyType), keyType, "list position " + i);
                 } catch (ValueTypeException e) {
                     throw new RuntimeException("Cannot convert value at list position " + (i) + " with value '" +
                             list.get(i) + "'");
                 }
                 try {
-                    value = inferObject(list.get(i + 1));
+                    value = GenericTypes.isUntyped(valueType) ? inferObject(list.get(i + 1)) :
+                            convertValue(list.get(i + 1), GenericTypes.rawClass(valueType), valueType,
+                                    "list position " + (i + 1));
                 } catch (ValueTypeException e) {
                     throw new RuntimeException("Cannot convert value at list position " + (i + 1) + " with value '" +
                             list.get(i + 1) + "'");
@@ -233,9 +754,156 @@ public class ConfiguratorUtil {
 
             return (E) map;
         }
+        if (fieldType.isArray()) {
+            return (E) constructArray(list, fieldType.getComponentType());
+        }
+        if (fieldType == List.class || fieldType == Collection.class || fieldType == ArrayList.class) {
+            final Type elementType = GenericTypes.argument(genericType, 0);
+            final List<Object> values = new ArrayList<Object>(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                values.add(convertElement(list.get(i), elementType, "list position " + i));
+            }
+            return (E) values;
+        }
+        if (fieldType == Set.class || fieldType == LinkedHashSet.class) {
+            final Type elementType = GenericTypes.argument(genericType, 0);
+            final Set<Object> values = new LinkedHashSet<Object>((int) (list.size() / 0.75f) + 1);
+            for (int i = 0; i < list.size(); i++) {
+                values.add(convertElement(list.get(i), elementType, "list position " + i));
+            }
+            return (E) values;
+        }
         throw new RuntimeException("List of type " + fieldType.getSimpleName() + " not yet implemented");
     }
 
+    /**
+     * Primitive arrays are filled straight from the config numbers, other arrays convert each element to the
+     * component type.
+     */
+    private Object constructArray(ConfigList list, Class<?> componentType) {
+        final int size = list.size();
+        if (componentType == int.class) {
+            final int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ConfigValues.toInt(list.get(i), "list position " + i);
+            }
+            return values;
+        } else if (componentType == long.class) {
+            final long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ConfigValues.toLong(list.get(i), "list position " + i);
+            }
+            return values;
+        } else if (componentType == double.class) {
+            final double[] values = new double[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ConfigValues.toDouble(list.get(i), "list position " + i);
+            }
+            return values;
+        } else if (componentType == boolean.class) {
+            final boolean[] values = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = ConfigValues.toBoolean(list.get(i), "list position " + i);
+            }
+            return values;
+        } else if (componentType.isPrimitive()) {
+            throw new RuntimeException("List of type " + componentType.getSimpleName() + "[] not yet implemented");
+        }
+        final Object[] values = (Object[]) Array.newInstance(componentType, size);
+        for (int i = 0; i < size; i++) {
+            values[i] = convertValue(list.get(i), componentType, "list position " + i);
+        }
+        return values;
+    }
+
+    /**
+     * Convert a single config value to type the same way {@link #getObject(Config, String, Class)} converts the
+     * value at a path.
+     *
+     * @param value Value to convert
+     * @param type  Type expected, null to infer it
+     * @param where Description of where value is, for the error message
+     * @return Converted value, null for a config null
+     */
+    Object convertValue(@NotNull ConfigValue value, @Nullable Class<?> type, @NotNull String where) {
+        return convertValue(value, type, type, where);
+    }
+
+    /**
+     * Convert a single config value using the type arguments of its declared type, so the entries of a
+     * {@code Map<Integer, Bean>} are converted the same as an Integer and a Bean would be.
+     *
+     * @param genericType Declared type with its type arguments, type itself if there are none
+     */
+    Object convertValue(@NotNull ConfigValue value, @Nullable Class<?> type, @Nullable Type genericType,
+                        @NotNull String where) {
+        switch (value.valueType()) {
+            case NULL:
+                if (type != null && type.isPrimitive()) {
+                    throw new RuntimeException("Primitive type " + type + " cannot be null at " + where);
+                }
+                return null;
+            case OBJECT:
+                return construct(ConfigBridge.configFromObjectValueType(value), type, genericType);
+            case LIST:
+                if (type == null) {
+                    break;
+                }
+                return constructFromList((ConfigList) value, type, genericType);
+        }
+        if (type == null || type == Object.class) {
+            return inferValue(value, where);
+        } else if (type == String.class) {
+            return ConfigValues.toText(value, where);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, ConfigValues.toText(value, where));
+        } else if (type == Integer.class || type == int.class) {
+            return ConfigValues.toInt(value, where);
+        } else if (type == Long.class || type == long.class) {
+            return ConfigValues.toLong(value, where);
+        } else if (type == Boolean.class || type == boolean.class) {
+            return ConfigValues.toBoolean(value, where);
+        } else if (type == Double.class || type == double.class) {
+            return ConfigValues.toDouble(value, where);
+        }
+        throw new IllegalArgumentException("Not implemented for " + where + " of type: " +
+                (type == null ? "inferred" : type.getName()));
+    }
+
+    /**
+     * Infer value the same as {@link #inferObject(ConfigValue)}.
+     *
+     * @param where Description of where value is, for the error message
+     */
+    Object inferValue(@NotNull ConfigValue value, @NotNull String where) {
+        try {
+            return inferObject(value);
+        } catch (ValueTypeException e) {
+            throw new RuntimeException("Cannot convert value '" + value + "' at " + where);
+        }
+    }
+
+    /**
+     * @param elementType Declared element type of a list or set, null or Object to infer the element
+     */
+    private Object convertElement(@NotNull ConfigValue value, @Nullable Type elementType, @NotNull String where) {
+        if (GenericTypes.isUntyped(elementType)) {
+            return inferValue(value, where);
+        }
+        return convertValue(value, GenericTypes.rawClass(elementType), elementType, where);
+    }
+
+    /**
+     * @return Map key converted to keyType, the key itself for String or undeclared keys
+     */
+    private Object convertKey(String key, Type keyType) {
+        if (GenericTypes.isUntyped(keyType) || GenericTypes.rawClass(keyType) == String.class) {
+            return key;
+        }
+        return convertValue(ConfigValueFactory.fromAnyRef(key), GenericTypes.rawClass(keyType), keyType,
+                "key '" + key + "'");
+    }
+
     public Object inferObject(@NotNull ConfigValue value) throws ValueTypeException {
         final ConfigValueType valueType = value.valueType();
 
@@ -267,46 +935,104 @@ public class ConfiguratorUtil {
      * @return object requested or {@code null}
      */
     public <E> E getObject(@NotNull Config config, @NotNull String path, @Nullable Class<E> fieldType) {
-        if (config.hasPath(path)) {
-
-            if (fieldType == null) {
-                // use inference to determine
-                try {
-                    return (E) inferObject(config.getValue(path));
-                } catch (ValueTypeException e) {
-                    throw new RuntimeException("Cannot resolve ~type of reference at " + path);
-                }
-            } else {
+        return getObject(config, path, fieldType, fieldType);
+    }
 
-                ConfigValue value = config.getValue(path);
-                final ConfigValueType valueType = value.valueType();
+    /**
+     * Grab an object from the path the same as {@link #getObject(Config, String, Class)}, converting the entries of
+     * maps, lists and sets to the type arguments of genericType.
+     *
+     * @param genericType Declared type with its type arguments, such as {@code Map<Integer, Integer>}
+     * @return object requested or {@code null}
+     */
+    public <E> E getObject(@NotNull Config config, @NotNull String path, @Nullable Class<E> fieldType,
+                           @Nullable Type genericType) {
+        final BindingMetrics metrics = this.metrics;
+        if (!metrics.isEnabled()) {
+            return getObjectNow(config, path, fieldType, genericType);
+        }
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final E object = getObjectNow(config, path, fieldType, genericType);
+            failed = false;
+            return object;
+        } finally {
+            metrics.operation(BindingMetrics.Operation.GET_OBJECT, fieldType, path, System.nanoTime() - start, failed);
+        }
+    }
 
-                switch (valueType) {
-                    case OBJECT:
-                        final Config toConstruct = config.getConfig(path);
-                        return construct(toConstruct, fieldType);
-                    case LIST:
-                        return constructFromList(config.getList(path), fieldType);
-                }
+    /**
+     * Look up the value of a field for a generated {@link ConfigBinder}. The name is a plain key of the bean config,
+     * so this is a single lookup on its root object with no path parsing.
+     *
+     * @param object Root object of the bean config
+     * @param name   Name of the field
+     * @return Value of the field, null if it is missing or a config null
+     */
+    @Nullable
+    public ConfigValue getFieldValue(@NotNull ConfigObject object, @NotNull String name) {
+        return ConfigValues.valueAt(object, name);
+    }
 
-                if (fieldType == String.class) {
-                    return (E) config.getString(path);
-                } else if (fieldType.isEnum()) {
-                    return (E) Enum.valueOf((Class<Enum>) fieldType, config.getString(path));
-                } else if (fieldType == Integer.class || fieldType == int.class) {
-                    return (E) Integer.valueOf(config.getInt(path));
-                } else if (fieldType == Boolean.class || fieldType == boolean.class) {
-                    return (E) Boolean.valueOf(config.getBoolean(path));
-                } else if (fieldType == Double.class || fieldType == double.class) {
-                    return (E) Double.valueOf(config.getDouble(path));
-                }
+    /**
+     * Convert the value of a field for a generated {@link ConfigBinder}, the same as
+     * {@link #getObject(Config, String, Class, Type)} converts the value at the path of the field.
+     *
+     * @param config      Bean config value was found in
+     * @param value       Value from {@link #getFieldValue(ConfigObject, String)}
+     * @param name        Name of the field
+     * @param fieldType   Type of the field
+     * @param genericType Declared type of the field with its type arguments
+     * @return Converted value
+     */
+    public <E> E convertField(@NotNull Config config, @NotNull ConfigValue value, @NotNull String name,
+                              @NotNull Class<E> fieldType, @NotNull Type genericType) {
+        final FieldUpdate update = applying.get();
+        if (update != null && update.config == config && update.prepared.containsKey(name)) {
+            // built by prepareFields, do not resolve it again
+            return (E) update.prepared.get(name);
+        }
+        final BindingMetrics metrics = this.metrics;
+        if (!metrics.isEnabled()) {
+            return (E) convertValue(value, fieldType, genericType, "path: " + name);
+        }
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final E object = (E) convertValue(value, fieldType, genericType, "path: " + name);
+            failed = false;
+            return object;
+        } finally {
+            metrics.operation(BindingMetrics.Operation.GET_OBJECT, fieldType, name, System.nanoTime() - start, failed);
+        }
+    }
 
+    private <E> E getObjectNow(@NotNull Config config, @NotNull String path, @Nullable Class<E> fieldType,
+                               @Nullable Type genericType) {
+        final FieldUpdate update = applying.get();
+        if (update != null && update.config == config && update.prepared.containsKey(path)) {
+            // built by prepareFields, do not resolve it again
+            return (E) update.prepared.get(path);
+        }
+        final ConfigValue value = ConfigValues.valueAt(config.root(), path);
+        if (value == null) {
+            if (fieldType == null || !fieldType.isPrimitive()) {
+                // if the fieldType isn't primitive then a missing path will be interpreted as a null value
+                return null;
+            }
+            throw new IllegalArgumentException("Not implemented for path: " + path + " of type: " +
+                    fieldType.getName());
+        }
+        if (fieldType == null) {
+            // use inference to determine
+            try {
+                return (E) inferObject(value);
+            } catch (ValueTypeException e) {
+                throw new RuntimeException("Cannot resolve ~type of reference at " + path);
             }
-        } else if (!fieldType.isPrimitive()) {
-            // if the fieldType isn't primitive then a missing path will be interpreted as a null value
-            return null;
         }
-        throw new IllegalArgumentException("Not implemented for path: " + path + " of type: " + fieldType.getName());
+        return (E) convertValue(value, fieldType, genericType, "path: " + path);
     }
 
     /**
@@ -324,7 +1050,8 @@ public class ConfiguratorUtil {
     /**
      * Populate passed in class using the config provided. Fields that will be wired must be tagged with
      * {@link javax.annotation.Resource} annotation. Method to be call after setting properties must be annotated with
-     * {@link javax.annotation.PostConstruct}.
+     * {@link javax.annotation.PostConstruct}. A {@link ConfigBinder} generated for the class at compile time is used
+     * instead of reflection when one is found.
      * See {@link ConfiguratorUtil#construct(com.typesafe.config.Config, Class)} for more syntax
      * details.
      *
@@ -335,55 +1062,435 @@ public class ConfiguratorUtil {
      * @see ConfiguratorUtil#construct(com.typesafe.config.Config, Class)
      */
     public <E> E loadClass(@Nullable Config config, @NotNull E instance) {
-        // hopefully this works when class is inherited
-        final Field[] fields = instance.getClass().getDeclaredFields();
+        return loadBean(config, instance.getClass(), instance);
+    }
+
+    /**
+     * Load a bean timed and with its references started ahead, the same for beans wired after they are built and for
+     * beans built through their constructor.
+     *
+     * @param type     Bean class
+     * @param instance Instance to wire, null to build one through the constructor taking the values of type
+     */
+    private <E> E loadBean(@Nullable Config config, @NotNull Class<?> type, @Nullable E instance) {
+        final BindingMetrics metrics = this.metrics;
+        final Object event = ConfigEvents.begin(ConfigEvents.LOAD_CLASS);
+        if (event == null && !metrics.isEnabled()) {
+            return loadBeanNow(config, type, instance);
+        }
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final E loaded = loadBeanNow(config, type, instance);
+            failed = false;
+            return loaded;
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.operation(BindingMetrics.Operation.LOAD_CLASS, type, null, System.nanoTime() - start, failed);
+            }
+            ConfigEvents.end(event, type, describe(config), null, failed);
+        }
+    }
+
+    private <E> E loadBeanNow(@Nullable Config config, @NotNull Class<?> type, @Nullable E instance) {
         if (config == null) {
             config = root;
         }
+        if (prefetching.get() != null || config.isEmpty() || !hasPrefetchHandlers()) {
+            return bindOrCreate(config, type, instance);
+        }
+        // outermost bean, start every async and batched reference in it before wiring anything
+        final ReferencePrefetch prefetch = new ReferencePrefetch(this);
+        prefetch.scanBean(config.root(), type);
+        prefetch.resolveBatches();
+        if (prefetch.isEmpty()) {
+            return bindOrCreate(config, type, instance);
+        }
+        prefetching.set(prefetch);
+        try {
+            return bindOrCreate(config, type, instance);
+        } finally {
+            prefetching.remove();
+            prefetch.cancelRemaining();
+        }
+    }
+
+    /**
+     * Start the references in values that are about to be bound on several threads, so references to the same
+     * batch handler are resolved together.
+     *
+     * @param type Type every value is bound to, null if inferred
+     * @return Prefetch started, to cancel when done, null if none was needed or one is running on this thread
+     * @see #sharedPrefetch(ReferencePrefetch)
+     */
+    @Nullable
+    ReferencePrefetch startPrefetch(@NotNull Collection<? extends ConfigValue> values, @Nullable Class<?> type) {
+        if (prefetching.get() != null || !hasPrefetchHandlers()) {
+            return null;
+        }
+        final ReferencePrefetch prefetch = new ReferencePrefetch(this);
+        for (ConfigValue value : values) {
+            prefetch.scan(value, type);
+        }
+        prefetch.resolveBatches();
+        return prefetch.isEmpty() ? null : prefetch;
+    }
+
+    /**
+     * @param started Prefetch returned by {@link #startPrefetch(Collection, Class)}
+     * @return Prefetch to pass to the binding threads, the one running on this thread if none was started
+     */
+    @Nullable
+    ReferencePrefetch sharedPrefetch(@Nullable ReferencePrefetch started) {
+        return started == null ? prefetching.get() : started;
+    }
+
+    /**
+     * Use a prefetch started on another thread for the binding done on this one.
+     *
+     * @return Prefetch to restore with {@link #exitPrefetch(ReferencePrefetch)}
+     */
+    @Nullable
+    ReferencePrefetch enterPrefetch(@Nullable ReferencePrefetch prefetch) {
+        final ReferencePrefetch previous = prefetching.get();
+        if (prefetch != null) {
+            prefetching.set(prefetch);
+        }
+        return previous;
+    }
+
+    void exitPrefetch(@Nullable ReferencePrefetch previous) {
+        if (previous == null) {
+            prefetching.remove();
+        } else {
+            prefetching.set(previous);
+        }
+    }
+
+    private <E> E bindOrCreate(@NotNull Config config, @NotNull Class<?> type, @Nullable E instance) {
+        return instance == null ? this.<E>create(config.root(), BindingPlan.of(type)) : bind(config, instance);
+    }
+
+    private boolean hasPrefetchHandlers() {
+        for (ReferenceHandler handler : refHandler.values()) {
+            if (handler instanceof AsyncReferenceHandler || handler instanceof BatchReferenceHandler) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <E> E bind(@NotNull Config config, @NotNull E instance) {
+        final BindingPlan plan = BindingPlan.of(instance.getClass());
+        final ConfigBinder<Object> binder = plan.getBinder();
+        if (binder != null) {
+            // generated at compile time, no reflection needed
+            if (config != null && !config.isEmpty()) {
+                binder.bind(this, config, instance);
+            } else {
+                log.warn("Config passed to loadConfig was empty");
+            }
+            postConstruct(binder, instance);
+            return instance;
+        }
         if (config != null && !config.isEmpty()) {
-            for (Field field : fields) {
-                // find fields that need wired
-                if (field.getAnnotation(Resource.class) != null) {
-                    try {
-                        final Class<?> fieldType = field.getType();
-                        final String path = field.getName();
-                        if (config.hasPath(path)) {
-                            final Object value = getObject(config, path, fieldType);
-                            log.trace("wiring in field {} with {}", path, value);
-                            field.setAccessible(true);
-                            field.set(instance, value);
-                        }
-                    } catch (RuntimeException e) {
-                        log.error("failed to wire field", e);
-                        throw e;
-                    } catch (IllegalAccessException e) {
-                        log.error("failed to wire field", e);
-                        throw new RuntimeException(e);
-                    }
+            // one lookup per field in the object itself, no paths to parse
+            final ConfigObject object = config.root();
+            for (BindingPlan.WiredField wired : plan.getFields()) {
+                final ConfigValue value = ConfigValues.valueAt(object, wired.getPath());
+                if (value != null) {
+                    wireField(instance, wired, value);
                 }
             }
         } else {
             log.warn("Config passed to loadConfig was empty");
         }
         // determine if we need to call the post constructor/init
-        final Method[] methods = instance.getClass().getMethods();
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(PostConstruct.class)) {
+        postConstruct(plan, instance);
+        return instance;
+    }
+
+    /**
+     * Re-wire only some fields of an instance that was loaded before, then call its
+     * {@link javax.annotation.PostConstruct} methods again. Used to apply a reload where only part of the config
+     * changed. A field whose path is no longer in config is set to null, or left alone if it is a primitive.
+     *
+     * @param config   Config map the instance was loaded from
+     * @param instance Instance to update
+     * @param fields   Names of the fields to wire again
+     * @param <E>      Generic instance type.
+     * @return Instance passed in after loading for chaining calls
+     */
+    public <E> E reloadFields(@NotNull Config config, @NotNull E instance, @NotNull Set<String> fields) {
+        applyFields(prepareFields(config, instance, fields));
+        return instance;
+    }
+
+    /**
+     * Build the new values of some fields of an instance without touching it, so a reload of several beans can
+     * fail before any of them changed.
+     *
+     * @param config   Config map the instance was loaded from
+     * @param instance Instance to update
+     * @param fields   Names of the fields to wire again
+     * @return Update to pass to {@link #applyFields(FieldUpdate)}
+     */
+    @NotNull
+    FieldUpdate prepareFields(@NotNull Config config, @NotNull Object instance, @NotNull Set<String> fields) {
+        final BindingPlan plan = BindingPlan.of(instance.getClass());
+        final ConfigObject object = config.root();
+        final FieldUpdate update = new FieldUpdate(plan, instance);
+        ConfigObject changed = object;
+        for (String key : object.keySet()) {
+            if (!fields.contains(key)) {
+                changed = changed.withoutKey(key);
+            }
+        }
+        update.config = changed.toConfig();
+        for (BindingPlan.WiredField wired : plan.getFields()) {
+            if (!fields.contains(wired.getPath())) {
+                continue;
+            }
+            final ConfigValue value = ConfigValues.valueAt(object, wired.getPath());
+            if (value != null) {
+                final String path = wired.getPath();
                 try {
-                    method.invoke(instance);
-                } catch (Exception e) {
-                    log.error("Cannot call PostConstruct", e);
-                    throw new RuntimeException("Cannot call PostConstruct", e);
+                    update.prepared.put(path, convertValue(value, wired.getType(), wired.getGenericType(),
+                            "path: " + path));
+                } catch (RuntimeException e) {
+                    log.error("failed to wire field", e);
+                    throw e;
                 }
+            } else if (!wired.getType().isPrimitive()) {
+                update.cleared.add(wired);
             }
         }
-        return instance;
+        return update;
+    }
+
+    /**
+     * Set the fields built by {@link #prepareFields(Config, Object, Set)}, then call the
+     * {@link javax.annotation.PostConstruct} methods of the instance again. A generated binder sets the fields and
+     * calls the methods when the instance has one, handed the values already built.
+     */
+    void applyFields(@NotNull FieldUpdate update) {
+        final ConfigBinder<Object> binder = update.plan.getBinder();
+        if (binder != null) {
+            applying.set(update);
+            try {
+                binder.bind(this, update.config, update.instance);
+            } finally {
+                applying.remove();
+            }
+        } else {
+            for (BindingPlan.WiredField wired : update.plan.getFields()) {
+                if (update.prepared.containsKey(wired.getPath())) {
+                    inject(update.instance, wired, update.prepared.get(wired.getPath()));
+                }
+            }
+        }
+        for (BindingPlan.WiredField wired : update.cleared) {
+            inject(update.instance, wired, null);
+        }
+        if (binder != null) {
+            postConstruct(binder, update.instance);
+        } else {
+            postConstruct(update.plan, update.instance);
+        }
+    }
+
+    private static void inject(Object instance, BindingPlan.WiredField wired, Object value) {
+        log.trace("wiring in field {} with {}", wired.getPath(), value);
+        try {
+            wired.inject(instance, value);
+        } catch (IllegalAccessException e) {
+            log.error("failed to wire field", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Field values of one instance built ahead of setting them.
+     */
+    static final class FieldUpdate {
+        private final BindingPlan plan;
+        private final Object instance;
+
+        /**
+         * Values by field path
+         */
+        private final Map<String, Object> prepared = new HashMap<String, Object>();
+
+        /**
+         * Fields no longer in config, set to null
+         */
+        private final List<BindingPlan.WiredField> cleared = new ArrayList<BindingPlan.WiredField>();
+
+        /**
+         * Config of the instance holding only the changed fields
+         */
+        private Config config;
+
+        private FieldUpdate(BindingPlan plan, Object instance) {
+            this.plan = plan;
+            this.instance = instance;
+        }
+    }
+
+    private void wireField(Object instance, BindingPlan.WiredField wired, ConfigValue configValue) {
+        final BindingMetrics metrics = this.metrics;
+        final long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        boolean failed = true;
+        try {
+            final String path = wired.getPath();
+            final Object value = convertValue(configValue, wired.getType(), wired.getGenericType(), "path: " + path);
+            log.trace("wiring in field {} with {}", path, value);
+            wired.inject(instance, value);
+            failed = false;
+        } catch (RuntimeException e) {
+            log.error("failed to wire field", e);
+            throw e;
+        } catch (IllegalAccessException e) {
+            log.error("failed to wire field", e);
+            throw new RuntimeException(e);
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.operation(BindingMetrics.Operation.WIRE_FIELD, wired.getType(), wired.getPath(),
+                        System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private void postConstruct(BindingPlan plan, Object instance) {
+        final BindingMetrics metrics = this.metrics;
+        for (Method method : plan.getPostConstructs()) {
+            final Object event = ConfigEvents.begin(ConfigEvents.POST_CONSTRUCT);
+            final long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+            boolean failed = true;
+            try {
+                method.invoke(instance);
+                failed = false;
+            } catch (Exception e) {
+                log.error("Cannot call PostConstruct", e);
+                throw new RuntimeException("Cannot call PostConstruct", e);
+            } finally {
+                if (metrics.isEnabled()) {
+                    metrics.operation(BindingMetrics.Operation.POST_CONSTRUCT, instance.getClass(), method.getName(),
+                            System.nanoTime() - start, failed);
+                }
+                ConfigEvents.end(event, instance.getClass(), method.getName(), null, failed);
+            }
+        }
+    }
+
+    private void postConstruct(ConfigBinder<Object> binder, Object instance) {
+        final BindingMetrics metrics = this.metrics;
+        final Object event = ConfigEvents.begin(ConfigEvents.POST_CONSTRUCT);
+        if (event == null && !metrics.isEnabled()) {
+            binder.postConstruct(instance);
+            return;
+        }
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            binder.postConstruct(instance);
+            failed = false;
+        } finally {
+            if (metrics.isEnabled()) {
+                metrics.operation(BindingMetrics.Operation.POST_CONSTRUCT, instance.getClass(), null,
+                        System.nanoTime() - start, failed);
+            }
+            ConfigEvents.end(event, instance.getClass(), null, null, failed);
+        }
+    }
+
+    /**
+     * Report binding timings to metrics, such as a {@link BindingStats}. Nothing is timed by default.
+     *
+     * @param metrics Receives timings, {@link BindingMetrics#NONE} to stop timing
+     */
+    public void setMetrics(@NotNull BindingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return Number of singletons built so far for '~ref: var.*' keys
+     */
+    public int getReferenceCount() {
+        return references.size();
+    }
+
+    /**
+     * @return Singletons built so far by '~ref: var.*' key
+     */
+    Map<String, Object> getBuiltReferences() {
+        return references.getAllBuilt();
+    }
+
+    /**
+     * Reuse a singleton built by another util for key instead of building it again.
+     *
+     * @param key   Reference key, a path under 'var'
+     * @param value Singleton to hand out for key
+     */
+    void keepReference(@NotNull String key, @Nullable Object value) {
+        references.putBuilt(key, value);
+    }
+
+    /**
+     * Bound the time spent waiting on an {@link AsyncReferenceHandler}.
+     *
+     * @param key     Namespace the handler is registered under
+     * @param timeout Longest wait for one reference
+     * @param unit    Unit of timeout
+     */
+    public void setHandlerTimeout(@NotNull String key, long timeout, @NotNull TimeUnit unit) {
+        handlerTimeouts.put(key, unit.toMillis(timeout));
+    }
+
+    @Nullable
+    ReferenceHandler getHandler(@NotNull String key) {
+        return refHandler.get(key);
+    }
+
+    /**
+     * @return Class for a '~type' name, null if it cannot be found
+     */
+    @Nullable
+    Class<?> findType(@NotNull String name) {
+        try {
+            return typeResolver.resolve(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
     }
 
     public void addHandler(String key, ReferenceHandler handler) {
         refHandler.put(key, handler);
     }
 
+    /**
+     * Resolve '~ref' keys lazily when the field they are injected in to is an interface. A proxy is injected instead
+     * and the reference is resolved, once, on the first method called on it. A '~lazy' key next to '~ref' overrides
+     * this setting for that reference.
+     *
+     * @param lazyReferences True to resolve references to interfaces on first use
+     */
+    public void setLazyReferences(boolean lazyReferences) {
+        this.lazyReferences = lazyReferences;
+    }
+
+    /**
+     * Register a short name that can be used for '~type' instead of the fully qualified class name, such as
+     * {@code ~type: url} for {@link java.net.URL}.
+     *
+     * @param alias Short name
+     * @param type  Class the name stands for
+     */
+    public void addTypeAlias(String alias, Class<?> type) {
+        typeResolver.addAlias(alias, type);
+    }
+
     public void clean() {
         for (ReferenceHandler handler : refHandler.values()) {
             handler.clean();
@@ -401,6 +1508,24 @@ public class ConfiguratorUtil {
         return new HashMap<Object, Object>();
     }
 
+    /**
+     * Determines type of maps that are created by app for a known number of entries. The default sizes the map so it
+     * does not rehash while it is filled, or uses {@link #createMap()} when a sub class overrides it. Maps declared
+     * with number keys, such as {@code Map<Integer, Integer>}, are filled in to a primitive map instead unless
+     * {@link #createMap()} is overridden.
+     *
+     * @param expectedSize Number of entries that will be put in the map
+     * @return Map instance
+     */
+    protected
+    @NotNull
+    HashMap<Object, Object> createMap(int expectedSize) {
+        if (customMaps) {
+            return createMap();
+        }
+        return new HashMap<Object, Object>((int) (expectedSize / 0.75f) + 1);
+    }
+
     private static class ValueTypeException extends Exception {
     }
 }
@@ -0,0 +1,269 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds the public constructor to call for the '~constructor' route. The best match is scored with primitive
+ * unboxing and widening taken into account (an {@link Integer} argument can call {@code X(int)} or {@code X(long)})
+ * and cached per class and argument type signature, so repeated construction does no searching. Constructors with
+ * the same score go to the one with the most specific parameter types, and fail as ambiguous if there is none.
+ */
+class ConstructorResolver {
+    private static final Logger log = LoggerFactory.getLogger(ConstructorResolver.class);
+
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private static final int NO_MATCH = -1;
+
+    /**
+     * Primitives in widening order, see JLS 5.1.2. Char is handled separately.
+     */
+    private static final Class<?>[] WIDENING = {byte.class, short.class, int.class, long.class, float.class,
+            double.class};
+
+    private static final Map<Class<?>, Class<?>> UNBOXED = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        UNBOXED.put(Boolean.class, boolean.class);
+        UNBOXED.put(Byte.class, byte.class);
+        UNBOXED.put(Character.class, char.class);
+        UNBOXED.put(Short.class, short.class);
+        UNBOXED.put(Integer.class, int.class);
+        UNBOXED.put(Long.class, long.class);
+        UNBOXED.put(Float.class, float.class);
+        UNBOXED.put(Double.class, double.class);
+    }
+
+    /**
+     * Marks a signature that has no matching constructor so misses are not searched again.
+     */
+    private static final Object NONE = new Object();
+
+    private static final ClassValue<ConcurrentMap<Signature, Object>> cache =
+            new ClassValue<ConcurrentMap<Signature, Object>>() {
+                @Override
+                protected ConcurrentMap<Signature, Object> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<Signature, Object>();
+                }
+            };
+
+    private ConstructorResolver() {
+
+    }
+
+    /**
+     * Find the best public constructor of type for the argument types.
+     *
+     * @param type     Class to construct
+     * @param argTypes Runtime types of the arguments, null entries are for null arguments
+     * @return Resolved constructor or null if none match
+     */
+    @Nullable
+    static <E> ResolvedConstructor<E> resolve(@NotNull Class<E> type, @NotNull Class<?>[] argTypes) {
+        final ConcurrentMap<Signature, Object> resolved = cache.get(type);
+        final Signature signature = new Signature(argTypes);
+        Object found = resolved.get(signature);
+        if (found == null) {
+            final Constructor<E> constructor = findBest(type, argTypes);
+            found = constructor == null ? NONE : new ResolvedConstructor<E>(constructor);
+            final Object previous = resolved.putIfAbsent(signature, found);
+            if (previous != null) {
+                found = previous;
+            }
+        }
+        return found == NONE ? null : (ResolvedConstructor<E>) found;
+    }
+
+    private static <E> Constructor<E> findBest(Class<E> type, Class<?>[] argTypes) {
+        final List<Constructor<?>> best = new ArrayList<Constructor<?>>();
+        int bestScore = Integer.MAX_VALUE;
+        for (Constructor<?> candidate : type.getConstructors()) {
+            final Class<?>[] params = candidate.getParameterTypes();
+            if (params.length != argTypes.length) {
+                continue;
+            }
+            int score = 0;
+            for (int i = 0; i < params.length && score != NO_MATCH; i++) {
+                final int cost = cost(params[i], argTypes[i]);
+                score = cost == NO_MATCH ? NO_MATCH : score + cost;
+            }
+            if (score != NO_MATCH && score < bestScore) {
+                best.clear();
+                bestScore = score;
+            }
+            if (score != NO_MATCH && score == bestScore) {
+                best.add(candidate);
+            }
+        }
+        return best.isEmpty() ? null : (Constructor<E>) mostSpecific(type, argTypes, best);
+    }
+
+    /**
+     * Pick the constructor whose parameter types can all be passed to each of the others, as the compiler would.
+     *
+     * @param tied Constructors with the same score
+     * @throws IllegalArgumentException if no one constructor is more specific than the rest
+     */
+    private static Constructor<?> mostSpecific(Class<?> type, Class<?>[] argTypes, List<Constructor<?>> tied) {
+        for (Constructor<?> candidate : tied) {
+            boolean specific = true;
+            for (int i = 0; i < tied.size() && specific; i++) {
+                specific = isMoreSpecific(candidate.getParameterTypes(), tied.get(i).getParameterTypes());
+            }
+            if (specific) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Ambiguous constructors of types: " + Arrays.toString(argTypes) +
+                " for " + type + ", could be any of " + tied);
+    }
+
+    private static boolean isMoreSpecific(Class<?>[] params, Class<?>[] others) {
+        for (int i = 0; i < params.length; i++) {
+            final Class<?> param = params[i];
+            final Class<?> other = others[i];
+            if (!other.isAssignableFrom(param) &&
+                    !(param.isPrimitive() && other.isPrimitive() && widening(param, other) != NO_MATCH)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cost of passing an argument of argType into a parameter of paramType. Lower is a closer match.
+     */
+    private static int cost(Class<?> paramType, @Nullable Class<?> argType) {
+        if (argType == null) {
+            // null can go to any reference
+            return paramType.isPrimitive() ? NO_MATCH : 8;
+        }
+        if (paramType == argType) {
+            return 0;
+        }
+        if (paramType.isPrimitive()) {
+            final Class<?> unboxed = UNBOXED.get(argType);
+            if (unboxed == null) {
+                return NO_MATCH;
+            }
+            if (unboxed == paramType) {
+                return 1;
+            }
+            final int widening = widening(unboxed, paramType);
+            return widening == NO_MATCH ? NO_MATCH : 1 + widening;
+        }
+        if (paramType.isAssignableFrom(argType)) {
+            int distance = 0;
+            for (Class<?> current = argType; current != null && current != paramType;
+                 current = current.getSuperclass()) {
+                distance++;
+            }
+            return 8 + distance;
+        }
+        return NO_MATCH;
+    }
+
+    private static int widening(Class<?> from, Class<?> to) {
+        if (from == char.class) {
+            from = short.class;
+            if (to == short.class) {
+                return NO_MATCH;
+            }
+        }
+        final int fromIndex = Arrays.asList(WIDENING).indexOf(from);
+        final int toIndex = Arrays.asList(WIDENING).indexOf(to);
+        if (fromIndex < 0 || toIndex < 0 || toIndex < fromIndex) {
+            return NO_MATCH;
+        }
+        return toIndex - fromIndex;
+    }
+
+    /**
+     * Constructor chosen for a signature. Calls go through a spreading {@link MethodHandle} when one can be made.
+     */
+    static class ResolvedConstructor<E> {
+        private final Constructor<E> constructor;
+        private final MethodHandle handle;
+
+        ResolvedConstructor(@NotNull Constructor<E> constructor) {
+            this.constructor = constructor;
+            MethodHandle handle = null;
+            try {
+                handle = MethodHandles.publicLookup().unreflectConstructor(constructor)
+                        .asSpreader(Object[].class, constructor.getParameterTypes().length)
+                        .asType(SPREAD_TYPE);
+            } catch (IllegalAccessException e) {
+                log.debug("falling back to reflection for constructor {}: {}", constructor, e.getMessage());
+            } catch (SecurityException e) {
+                log.debug("falling back to reflection for constructor {}: {}", constructor, e.getMessage());
+            }
+            this.handle = handle;
+        }
+
+        @NotNull
+        Constructor<E> getConstructor() {
+            return constructor;
+        }
+
+        /**
+         * Call the constructor.
+         *
+         * @param args Arguments matching the signature used to resolve
+         * @return New instance
+         * @throws InvocationTargetException if constructor throws
+         */
+        @NotNull
+        E newInstance(@NotNull Object[] args) throws InvocationTargetException, InstantiationException,
+                IllegalAccessException {
+            if (handle == null) {
+                return constructor.newInstance(args);
+            }
+            try {
+                return (E) (Object) handle.invokeExact(args);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+
+    private static class Signature {
+        private final Class<?>[] types;
+        private final int hash;
+
+        private Signature(Class<?>[] types) {
+            this.types = types;
+            this.hash = Arrays.hashCode(types);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Signature)) return false;
+
+            Signature that = (Signature) o;
+
+            return hash == that.hash && Arrays.equals(types, that.types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -4,10 +4,35 @@ import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import com.typesafe.config.ConfigParseOptions;
 import com.typesafe.config.ConfigResolveOptions;
+import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
 /**
+ * Resolves the config for the environment the application runs in. Application config holds an 'all' section and a
+ * section per environment (dev, qa, prd, ...); the environment section falls back to 'all'.
+ * <p/>
+ * {@link #getEnvConfig()} (and {@link #resolveEnvConfig()}, which is the same) loads and resolves once per class
+ * loader and environment and hands every caller after that the same config. {@link #clearEnvConfigs()} forgets them
+ * so the next call loads again.
+ *
  * @author Chris Flaming 1/13/2015
  */
 public class EnvironmentContext {
@@ -23,23 +48,146 @@ public class EnvironmentContext {
      */
     public static final String SYSTEM_ENVIRONMENT = "SYSTEM_ENVIRONMENT";
 
+    /**
+     * Resolved configs by class loader, so a config is never shared between applications in one container
+     */
+    private static final Map<ClassLoader, LoadedConfigs> loaded = new WeakHashMap<ClassLoader, LoadedConfigs>();
+
     private EnvironmentContext() {
 
     }
 
+    /**
+     * Config of the current environment, shared the same as {@link #getEnvConfig()}.
+     *
+     * @return Resolved environment config
+     */
     public static Config resolveEnvConfig() {
-        // read the configuration from the default file
-        ConfigParseOptions parseOptions = ensureClassLoader(ConfigParseOptions.defaults());
-        ClassLoader loader = parseOptions.getClassLoader();
-        final Config appConfig = ConfigFactory.load(loader, parseOptions, EnvironmentContext.ALLOW_UNRESOLVED);
-        return resolveEnvConfig(appConfig);
+        return getEnvConfig();
     }
 
     protected static Config resolveEnvConfig(Config config) {
-        final Config allConfig = config.getConfig("all");
-        final Config envConfig = config.getConfig(getEnvironment());
-        final Config combined = envConfig.withFallback(allConfig);
-        return combined.resolve(NO_UNRESOLVED);
+        return resolveEnvConfig(config, getEnvironment());
+    }
+
+    static Config resolveEnvConfig(Config config, String environment) {
+        final Object event = ConfigEvents.begin(ConfigEvents.ENVIRONMENT_RESOLVE);
+        boolean failed = true;
+        try {
+            final Config allConfig = config.getConfig("all");
+            final Config envConfig = config.getConfig(environment);
+            final Config combined = envConfig.withFallback(allConfig);
+            final Config resolved = combined.resolve(NO_UNRESOLVED);
+            failed = false;
+            return resolved;
+        } finally {
+            ConfigEvents.end(event, null, environment, null, failed);
+        }
+    }
+
+    /**
+     * Config of the current environment, loaded and resolved once and shared after that.
+     *
+     * @return Resolved environment config
+     * @see EnvironmentContext#getEnvConfig(String)
+     */
+    @NotNull
+    public static Config getEnvConfig() {
+        return getEnvConfig(getEnvironment());
+    }
+
+    /**
+     * Config of an environment, loaded and resolved once per context class loader and shared after that. Callers
+     * racing on the first call wait for the one load instead of loading again. A failed load is not kept, the next
+     * call tries again.
+     *
+     * @param environment Environment section, such as qa
+     * @return Resolved environment config
+     */
+    @NotNull
+    public static Config getEnvConfig(@NotNull String environment) {
+        final ClassLoader loader = getClassLoader();
+        return loadedConfigs(loader).get(loader, environment);
+    }
+
+    private static LoadedConfigs loadedConfigs(ClassLoader loader) {
+        synchronized (loaded) {
+            LoadedConfigs configs = loaded.get(loader);
+            if (configs == null) {
+                configs = new LoadedConfigs();
+                loaded.put(loader, configs);
+            }
+            return configs;
+        }
+    }
+
+    /**
+     * Forget configs kept by {@link #getEnvConfig(String)} so the next call loads them again.
+     */
+    public static void clearEnvConfigs() {
+        synchronized (loaded) {
+            loaded.clear();
+        }
+    }
+
+    /**
+     * Resolve several environments of the application config in parallel on the common fork join pool. The
+     * application config is parsed once and shared the same as {@link #getEnvConfig(String)}.
+     *
+     * @param environments Environment sections, such as dev, qa and prd
+     * @return Resolved configs by environment
+     * @see EnvironmentContext#resolveEnvConfigs(Config, Collection, Executor)
+     */
+    @NotNull
+    public static Map<String, Config> resolveEnvConfigs(@NotNull Collection<String> environments) {
+        final ClassLoader loader = getClassLoader();
+        return resolveEnvConfigs(loadedConfigs(loader).getAppConfig(loader), environments, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Resolve several environments of one config in parallel, each against the shared 'all' section. The config is
+     * parsed once by the caller. Every environment is tried even if some fail, so a single call checks all of them.
+     *
+     * @param config       Config holding the 'all' section and a section per environment
+     * @param environments Environment sections, such as dev, qa and prd
+     * @param executor     Executor to resolve on
+     * @return Resolved configs by environment, in the order given
+     * @throws RuntimeException naming every environment that failed, with each failure added as suppressed
+     */
+    @NotNull
+    public static Map<String, Config> resolveEnvConfigs(@NotNull final Config config,
+                                                        @NotNull Collection<String> environments,
+                                                        @NotNull Executor executor) {
+        final Map<String, CompletableFuture<Config>> futures = new LinkedHashMap<String, CompletableFuture<Config>>();
+        for (final String environment : environments) {
+            futures.put(environment, CompletableFuture.supplyAsync(new Supplier<Config>() {
+                @Override
+                public Config get() {
+                    return resolveEnvConfig(config, environment);
+                }
+            }, executor));
+        }
+
+        final Map<String, Config> resolved = new LinkedHashMap<String, Config>();
+        final List<String> failed = new ArrayList<String>();
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        for (Map.Entry<String, CompletableFuture<Config>> entry : futures.entrySet()) {
+            try {
+                resolved.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                log.error("Cannot resolve environment {}", entry.getKey(), e.getCause());
+                failed.add(entry.getKey());
+                failures.add(e.getCause());
+            }
+        }
+        if (!failed.isEmpty()) {
+            final RuntimeException error = new RuntimeException("Cannot resolve environments " + failed);
+            for (Throwable failure : failures) {
+                error.addSuppressed(failure);
+            }
+            throw error;
+        }
+        return resolved;
     }
 
     /**
@@ -60,10 +208,81 @@ public class EnvironmentContext {
         return env.trim().toLowerCase();
     }
 
+    private static ClassLoader getClassLoader() {
+        return ensureClassLoader(ConfigParseOptions.defaults()).getClassLoader();
+    }
+
+    private static Config loadAppConfig(ClassLoader loader) {
+        // read the configuration from the default file
+        final ConfigParseOptions parseOptions = ConfigParseOptions.defaults().setClassLoader(loader);
+        final Object event = ConfigEvents.begin(ConfigEvents.ENVIRONMENT_PARSE);
+        boolean failed = true;
+        try {
+            final Config appConfig = ConfigFactory.load(loader, parseOptions, EnvironmentContext.ALLOW_UNRESOLVED);
+            failed = false;
+            return appConfig;
+        } finally {
+            ConfigEvents.end(event, null, null, null, failed);
+        }
+    }
+
     private static ConfigParseOptions ensureClassLoader(ConfigParseOptions options) {
         return options.getClassLoader() == null
                 ? options.setClassLoader(Thread.currentThread().getContextClassLoader())
                 : options;
     }
 
+    /**
+     * Application config of one class loader, parsed once, and its environments resolved once each. The class loader
+     * is passed in rather than kept so it can still be collected.
+     */
+    private static class LoadedConfigs {
+        private volatile Config appConfig;
+        private final ConcurrentMap<String, FutureTask<Config>> envConfigs =
+                new ConcurrentHashMap<String, FutureTask<Config>>();
+
+        private Config get(final ClassLoader loader, final String environment) {
+            FutureTask<Config> task = envConfigs.get(environment);
+            if (task == null) {
+                final FutureTask<Config> created = new FutureTask<Config>(new Callable<Config>() {
+                    @Override
+                    public Config call() {
+                        return resolveEnvConfig(getAppConfig(loader), environment);
+                    }
+                });
+                task = envConfigs.putIfAbsent(environment, created);
+                if (task == null) {
+                    task = created;
+                    created.run();
+                }
+            }
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                // do not keep failures, the next caller tries again
+                envConfigs.remove(environment, task);
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while loading config", e);
+            }
+        }
+
+        private Config getAppConfig(ClassLoader loader) {
+            Config config = appConfig;
+            if (config == null) {
+                synchronized (this) {
+                    config = appConfig;
+                    if (config == null) {
+                        config = loadAppConfig(loader);
+                        appConfig = config;
+                    }
+                }
+            }
+            return config;
+        }
+    }
 }
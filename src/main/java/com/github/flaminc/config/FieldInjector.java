@@ -0,0 +1,100 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Sets a wired field on an instance. A setter {@link MethodHandle} adapted once to {@code (Object, Object)} is used
+ * when one can be created, so each write is one {@code invokeExact} without the access check {@link Field#set} does
+ * per call. Otherwise (final fields, restrictive security manager) it falls back to {@link Field#set}.
+ * <p/>
+ * This does not give a write as cheap as a plain field store. The handle is held per field rather than in a static
+ * final or a spun class, so it is not a constant to the JIT and the write is not inlined through it, and
+ * {@link java.lang.invoke.LambdaMetafactory} cannot target a field setter. Values of primitive fields arrive boxed
+ * and are unboxed by the handle. {@code FieldInjectionBenchmark} in the benchmarks module measures the gap.
+ */
+abstract class FieldInjector {
+    private static final Logger log = LoggerFactory.getLogger(FieldInjector.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Create the fastest injector available for the field. Field must already be accessible.
+     *
+     * @param field Field to set
+     * @return Injector for field
+     */
+    @NotNull
+    static FieldInjector of(@NotNull Field field) {
+        try {
+            final MethodHandle setter = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+            return new HandleInjector(field, setter);
+        } catch (IllegalAccessException e) {
+            log.debug("falling back to reflection for field {}: {}", field, e.getMessage());
+        } catch (SecurityException e) {
+            log.debug("falling back to reflection for field {}: {}", field, e.getMessage());
+        }
+        return new ReflectiveInjector(field);
+    }
+
+    protected final Field field;
+
+    private FieldInjector(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * Set field on instance
+     *
+     * @param instance Instance owning the field
+     * @param value    Value to set, boxed for primitive fields
+     * @throws IllegalAccessException when field cannot be written
+     */
+    abstract void inject(@NotNull Object instance, @Nullable Object value) throws IllegalAccessException;
+
+    private static class HandleInjector extends FieldInjector {
+        private final MethodHandle setter;
+
+        private HandleInjector(Field field, MethodHandle setter) {
+            super(field);
+            this.setter = setter;
+        }
+
+        @Override
+        void inject(@NotNull Object instance, @Nullable Object value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (ClassCastException e) {
+                // keep the same failure reflection would give
+                throw new IllegalArgumentException("Cannot set " + field + " to " +
+                        (value == null ? "null" : value.getClass().getName()), e);
+            } catch (NullPointerException e) {
+                throw new IllegalArgumentException("Cannot set primitive " + field + " to null", e);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static class ReflectiveInjector extends FieldInjector {
+        private ReflectiveInjector(Field field) {
+            super(field);
+        }
+
+        @Override
+        void inject(@NotNull Object instance, @Nullable Object value) throws IllegalAccessException {
+            field.set(instance, value);
+        }
+    }
+}
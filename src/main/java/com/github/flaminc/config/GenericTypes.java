@@ -0,0 +1,64 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+
+/**
+ * Reads declared field and parameter types, such as the Integer keys of {@code Map<Integer, String>}. Type variables
+ * and wildcards stand for their first bound.
+ */
+class GenericTypes {
+
+    private GenericTypes() {
+
+    }
+
+    /**
+     * @param type Declared type
+     * @return Class the type erases to
+     */
+    @NotNull
+    static Class<?> rawClass(@NotNull Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        } else if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        return Object.class;
+    }
+
+    /**
+     * @param type  Declared type
+     * @param index Position of the type argument
+     * @return Type argument, null if type has none
+     */
+    @Nullable
+    static Type argument(@Nullable Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            final Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            return index < arguments.length ? arguments[index] : null;
+        }
+        return null;
+    }
+
+    /**
+     * @param type Declared type
+     * @return True if the type says nothing more than Object
+     */
+    static boolean isUntyped(@Nullable Type type) {
+        return type == null || rawClass(type) == Object.class;
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.flaminc.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JFR event types behind {@link ConfigEvents}. Only loaded when {@code jdk.jfr} is present. The event type of
+ * each kind is looked up once, so an event is only allocated while a recording has its kind enabled.
+ */
+class JfrEvents {
+
+    /**
+     * Event type of each kind by kind number, asked whether it is enabled before an event is created
+     */
+    private static final EventType[] TYPES = {
+            EventType.getEventType(ConstructEvent.class),
+            EventType.getEventType(LoadClassEvent.class),
+            EventType.getEventType(ResolveReferenceEvent.class),
+            EventType.getEventType(PostConstructEvent.class),
+            EventType.getEventType(EnvironmentParseEvent.class),
+            EventType.getEventType(EnvironmentResolveEvent.class)
+    };
+
+    private JfrEvents() {
+
+    }
+
+    static Object begin(int kind) {
+        if (kind < 0 || kind >= TYPES.length) {
+            throw new IllegalArgumentException("Unknown event kind " + kind);
+        }
+        if (!TYPES[kind].isEnabled()) {
+            return null;
+        }
+        final ConfigEvent event;
+        switch (kind) {
+            case ConfigEvents.CONSTRUCT:
+                event = new ConstructEvent();
+                break;
+            case ConfigEvents.LOAD_CLASS:
+                event = new LoadClassEvent();
+                break;
+            case ConfigEvents.RESOLVE_REFERENCE:
+                event = new ResolveReferenceEvent();
+                break;
+            case ConfigEvents.POST_CONSTRUCT:
+                event = new PostConstructEvent();
+                break;
+            case ConfigEvents.ENVIRONMENT_PARSE:
+                event = new EnvironmentParseEvent();
+                break;
+            default:
+                event = new EnvironmentResolveEvent();
+                break;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void end(Object begun, Class<?> type, String path, String handler, boolean failed) {
+        final ConfigEvent event = (ConfigEvent) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.beanClass = type;
+            event.path = path;
+            event.handler = handler;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    @Category({"Config"})
+    @StackTrace(false)
+    abstract static class ConfigEvent extends Event {
+        @Label("Bean Class")
+        Class<?> beanClass;
+
+        @Label("Path")
+        @Description("Config path, origin of the bean config, environment or PostConstruct method")
+        String path;
+
+        @Label("Handler")
+        @Description("Reference handler namespace")
+        String handler;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("com.github.flaminc.config.Construct")
+    @Label("Construct Bean")
+    static class ConstructEvent extends ConfigEvent {
+    }
+
+    @Name("com.github.flaminc.config.LoadClass")
+    @Label("Load Bean")
+    static class LoadClassEvent extends ConfigEvent {
+    }
+
+    @Name("com.github.flaminc.config.ResolveReference")
+    @Label("Resolve Reference")
+    static class ResolveReferenceEvent extends ConfigEvent {
+    }
+
+    @Name("com.github.flaminc.config.PostConstruct")
+    @Label("Post Construct")
+    static class PostConstructEvent extends ConfigEvent {
+    }
+
+    @Name("com.github.flaminc.config.EnvironmentParse")
+    @Label("Parse Environment Config")
+    static class EnvironmentParseEvent extends ConfigEvent {
+    }
+
+    @Name("com.github.flaminc.config.EnvironmentResolve")
+    @Label("Resolve Environment Config")
+    static class EnvironmentResolveEvent extends ConfigEvent {
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Proxy handler for a '~ref' that is only resolved when a method is first called on it. The target is resolved
+ * once, even when the first calls come from several threads. Each method called after that is bound to the target
+ * once as a {@link MethodHandle}, so later calls skip the access checks and argument wrapping of
+ * {@link Method#invoke}.
+ * <p/>
+ * {@code equals} and {@code hashCode} never resolve the target and always compare the proxy by identity, before and
+ * after resolution, so a proxy keeps its place in a hash set or map. {@code toString} describes the proxy until the
+ * target is resolved and goes to the target after that.
+ */
+class LazyReference implements InvocationHandler {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private static final MethodType CALL_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * Create a proxy for an interface that resolves its target on first use.
+     *
+     * @param type     Interface to proxy
+     * @param resolver Resolves the target
+     * @return Proxy implementing type
+     */
+    @NotNull
+    static <E> E create(@NotNull Class<E> type, @NotNull Callable<E> resolver) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new LazyReference(type, resolver)));
+    }
+
+    private final Object lock = new Object();
+
+    private final Class<?> type;
+
+    private Callable<?> resolver;
+
+    private volatile Object target;
+
+    /**
+     * Methods called on the target, bound to it and taking the argument array
+     */
+    private final ConcurrentMap<Method, MethodHandle> calls = new ConcurrentHashMap<Method, MethodHandle>();
+
+    private LazyReference(Class<?> type, Callable<?> resolver) {
+        this.type = type;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            // identity of the proxy, so its hash does not change when the target is resolved
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if (target == null && "toString".equals(method.getName())) {
+                return "lazy reference to " + type.getName();
+            }
+        }
+        final Object resolved = getTarget();
+        MethodHandle call = calls.get(method);
+        if (call == null) {
+            call = bind(method, resolved);
+            if (call == null) {
+                try {
+                    return method.invoke(resolved, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            calls.putIfAbsent(method, call);
+        }
+        return call.invokeExact(args == null ? NO_ARGS : args);
+    }
+
+    /**
+     * @return Handle calling method on target with the argument array, null if it cannot be accessed as a handle
+     */
+    private static MethodHandle bind(Method method, Object target) {
+        try {
+            return MethodHandles.lookup().unreflect(method).bindTo(target)
+                    .asSpreader(Object[].class, method.getParameterTypes().length).asType(CALL_TYPE);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private Object getTarget() {
+        Object resolved = target;
+        if (resolved == null) {
+            synchronized (lock) {
+                resolved = target;
+                if (resolved == null) {
+                    try {
+                        resolved = resolver.call();
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new RuntimeException("Cannot resolve lazy reference", e);
+                    }
+                    if (resolved == null) {
+                        throw new NullPointerException("Lazy reference resolved to null");
+                    }
+                    target = resolved;
+                    // let the config and anything else the resolver holds be collected
+                    resolver = null;
+                }
+            }
+        }
+        return resolved;
+    }
+}
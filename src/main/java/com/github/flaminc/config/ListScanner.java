@@ -0,0 +1,248 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a document holding a single list in to the text of its elements, reading only as far as the next element.
+ * Just enough of the HOCON syntax is understood to find where elements end: nesting of objects and lists, quoted and
+ * triple quoted strings and comments. Elements are separated by commas or new lines, the same as in HOCON. Each
+ * element is left for the config parser.
+ */
+class ListScanner {
+    private static final int END = -1;
+
+    private final Reader reader;
+
+    /**
+     * Reused for each element so only the largest element is ever held
+     */
+    private final StringBuilder element = new StringBuilder();
+
+    /**
+     * Character read ahead, END if none
+     */
+    private int peeked = END;
+
+    private boolean started;
+
+    private boolean finished;
+
+    private int line = 1;
+
+    private int elementLine;
+
+    ListScanner(@NotNull Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return Text of the next element or null at the end of the list
+     * @throws IOException if reading fails
+     */
+    @Nullable
+    String next() throws IOException {
+        if (!started) {
+            start();
+        }
+        while (!finished) {
+            element.setLength(0);
+            if (readElement()) {
+                return element.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Line the last element started on
+     */
+    int getElementLine() {
+        return elementLine;
+    }
+
+    private void start() throws IOException {
+        started = true;
+        int c = skipBlank();
+        if (c == '\uFEFF') {
+            // byte order mark
+            c = skipBlank();
+        }
+        if (c != '[') {
+            throw new RuntimeException("Expected a list at line " + line + " but found " +
+                    (c == END ? "end of input" : "'" + (char) c + "'"));
+        }
+    }
+
+    /**
+     * Skip white space and comments before the list.
+     */
+    private int skipBlank() throws IOException {
+        while (true) {
+            final int c = read();
+            if (c == '#' || (c == '/' && peek() == '/')) {
+                skipComment();
+            } else if (c == END || !Character.isWhitespace(c)) {
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Read up to the separator after an element, or the end of the list.
+     *
+     * @return False if there was only white space before the separator
+     */
+    private boolean readElement() throws IOException {
+        int depth = 0;
+        boolean blank = true;
+        while (true) {
+            final int c = read();
+            if (blank && startsContent(c)) {
+                blank = false;
+                elementLine = line;
+            }
+            switch (c) {
+                case END:
+                    throw new RuntimeException("Unexpected end of input in list element starting at line " +
+                            elementLine);
+                case '#':
+                    skipComment();
+                    if (depth == 0) {
+                        return !blank;
+                    }
+                    element.append('\n');
+                    continue;
+                case '/':
+                    if (peek() == '/') {
+                        skipComment();
+                        if (depth == 0) {
+                            return !blank;
+                        }
+                        element.append('\n');
+                        continue;
+                    }
+                    break;
+                case '"':
+                    readString();
+                    continue;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        if (c == ']') {
+                            finished = true;
+                            return !blank;
+                        }
+                        throw new RuntimeException("Unexpected '}' at line " + line);
+                    }
+                    depth--;
+                    break;
+                case ',':
+                case '\n':
+                    if (depth == 0) {
+                        return !blank;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            element.append((char) c);
+        }
+    }
+
+    /**
+     * @return False for characters that can come before an element without being part of it
+     */
+    private static boolean startsContent(int c) {
+        return c != END && c != ',' && c != ']' && c != '#' && c != '/' && !Character.isWhitespace(c);
+    }
+
+    /**
+     * Copy a string whose opening quote was just read, so brackets and separators in it are not counted.
+     */
+    private void readString() throws IOException {
+        element.append('"');
+        if (peek() == '"') {
+            element.append((char) read());
+            if (peek() != '"') {
+                // empty string
+                return;
+            }
+            element.append((char) read());
+            readTripleQuoted();
+            return;
+        }
+        while (true) {
+            final int c = read();
+            if (c == END || c == '\n') {
+                throw new RuntimeException("Unterminated string in list element starting at line " + elementLine);
+            }
+            element.append((char) c);
+            if (c == '\\') {
+                final int escaped = read();
+                if (escaped == END) {
+                    throw new RuntimeException("Unterminated string in list element starting at line " +
+                            elementLine);
+                }
+                element.append((char) escaped);
+            } else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    private void readTripleQuoted() throws IOException {
+        int quotes = 0;
+        while (true) {
+            final int c = read();
+            if (c == END) {
+                throw new RuntimeException("Unterminated string in list element starting at line " + elementLine);
+            }
+            element.append((char) c);
+            if (c != '"') {
+                quotes = 0;
+            } else if (++quotes >= 3 && peek() != '"') {
+                // extra quotes before the last three are part of the string
+                return;
+            }
+        }
+    }
+
+    private void skipComment() throws IOException {
+        while (true) {
+            final int c = peek();
+            if (c == END || c == '\n') {
+                return;
+            }
+            read();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == END) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        final int c;
+        if (peeked != END) {
+            c = peeked;
+            peeked = END;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.flaminc.config;
+
+import com.github.flaminc.config.collect.IntDoubleMap;
+import com.github.flaminc.config.collect.IntIntMap;
+import com.github.flaminc.config.collect.IntLongMap;
+import com.github.flaminc.config.collect.IntObjectMap;
+import com.github.flaminc.config.collect.LongDoubleMap;
+import com.github.flaminc.config.collect.LongIntMap;
+import com.github.flaminc.config.collect.LongLongMap;
+import com.github.flaminc.config.collect.LongObjectMap;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Fills the primitive maps of {@link com.github.flaminc.config.collect} from config. Keys and number values are read
+ * straight from the config numbers so nothing is boxed on the way in, and each map is sized for its entries up front.
+ * Object keys are the map keys as strings ({@code {1: a, 2: b}}); lists alternate keys and values the same as for
+ * {@link Map}.
+ * <p/>
+ * A primitive map is only used for a field declared as one; a {@link Map} field stays a {@link Map} whatever its type
+ * arguments. Object values are converted to the declared value type.
+ */
+class PrimitiveMaps {
+
+    private PrimitiveMaps() {
+
+    }
+
+    /**
+     * @param type Declared field type
+     * @return True if type is one of the primitive maps
+     */
+    static boolean supports(@NotNull Class<?> type) {
+        return type == IntIntMap.class || type == IntLongMap.class || type == IntDoubleMap.class ||
+                type == IntObjectMap.class || type == LongIntMap.class || type == LongLongMap.class ||
+                type == LongDoubleMap.class || type == LongObjectMap.class;
+    }
+
+    /**
+     * @param type        Primitive map to fill
+     * @param genericType Declared type, for the value type of object maps
+     */
+    @NotNull
+    static Object fromObject(@NotNull ConfiguratorUtil util, @NotNull ConfigObject object, @NotNull Class<?> type,
+                             @Nullable Type genericType) {
+        final Type valueType = valueType(type, genericType);
+        final Object map = create(type, object.size());
+        for (Map.Entry<String, ConfigValue> entry : object.entrySet()) {
+            final String where = "key '" + entry.getKey() + "'";
+            final long key;
+            try {
+                key = Long.parseLong(entry.getKey());
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Expected a whole number " + where + " for " + type.getSimpleName());
+            }
+            put(util, map, key, entry.getValue(), valueType, where);
+        }
+        return map;
+    }
+
+    /**
+     * @param type        Primitive map to fill
+     * @param genericType Declared type, for the value type of object maps
+     */
+    @NotNull
+    static Object fromList(@NotNull ConfiguratorUtil util, @NotNull ConfigList list, @NotNull Class<?> type,
+                           @Nullable Type genericType) {
+        final Type valueType = valueType(type, genericType);
+        if (list.size() % 2 != 0) {
+            throw new RuntimeException("Map must have list with even number of entries");
+        }
+        final Object map = create(type, list.size() / 2);
+        for (int i = 0; i < list.size(); i += 2) {
+            final long key = ConfigValues.toLong(list.get(i), "list position " + i);
+            put(util, map, key, list.get(i + 1), valueType, "list position " + (i + 1));
+        }
+        return map;
+    }
+
+    /**
+     * @return Declared value type of an object map, null if not declared
+     */
+    private static Type valueType(Class<?> type, Type genericType) {
+        if (genericType == null || (type != IntObjectMap.class && type != LongObjectMap.class)) {
+            return null;
+        }
+        // IntObjectMap<V>
+        return GenericTypes.argument(genericType, 0);
+    }
+
+    private static Object toObject(ConfiguratorUtil util, ConfigValue value, Type valueType, String where) {
+        if (GenericTypes.isUntyped(valueType)) {
+            return util.inferValue(value, where);
+        }
+        return util.convertValue(value, GenericTypes.rawClass(valueType), valueType, where);
+    }
+
+    private static Object create(Class<?> type, int size) {
+        if (type == IntIntMap.class) {
+            return new IntIntMap(size);
+        } else if (type == IntLongMap.class) {
+            return new IntLongMap(size);
+        } else if (type == IntDoubleMap.class) {
+            return new IntDoubleMap(size);
+        } else if (type == IntObjectMap.class) {
+            return new IntObjectMap<Object>(size);
+        } else if (type == LongIntMap.class) {
+            return new LongIntMap(size);
+        } else if (type == LongLongMap.class) {
+            return new LongLongMap(size);
+        } else if (type == LongDoubleMap.class) {
+            return new LongDoubleMap(size);
+        } else if (type == LongObjectMap.class) {
+            return new LongObjectMap<Object>(size);
+        }
+        throw new IllegalArgumentException("Not a primitive map: " + type.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(ConfiguratorUtil util, Object map, long key, ConfigValue value, Type valueType,
+                            String where) {
+        if (map instanceof IntIntMap) {
+            ((IntIntMap) map).put(ConfigValues.toInt(key, where), ConfigValues.toInt(value, where));
+        } else if (map instanceof IntLongMap) {
+            ((IntLongMap) map).put(ConfigValues.toInt(key, where), ConfigValues.toLong(value, where));
+        } else if (map instanceof IntDoubleMap) {
+            ((IntDoubleMap) map).put(ConfigValues.toInt(key, where), ConfigValues.toDouble(value, where));
+        } else if (map instanceof IntObjectMap) {
+            ((IntObjectMap<Object>) map).put(ConfigValues.toInt(key, where), toObject(util, value, valueType, where));
+        } else if (map instanceof LongIntMap) {
+            ((LongIntMap) map).put(key, ConfigValues.toInt(value, where));
+        } else if (map instanceof LongLongMap) {
+            ((LongLongMap) map).put(key, ConfigValues.toLong(value, where));
+        } else if (map instanceof LongDoubleMap) {
+            ((LongDoubleMap) map).put(key, ConfigValues.toDouble(value, where));
+        } else {
+            ((LongObjectMap<Object>) map).put(key, toObject(util, value, valueType, where));
+        }
+    }
+}
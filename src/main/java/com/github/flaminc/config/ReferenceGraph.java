@@ -0,0 +1,129 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph of the beans directly under a config path. Each child of the path is a node keyed by its
+ * reference key (such as 'var.client') and depends on every other node it points to with '~ref' anywhere in its
+ * subtree.
+ */
+class ReferenceGraph {
+
+    private final Map<String, Set<String>> dependencies;
+
+    private ReferenceGraph(Map<String, Set<String>> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Scan the children of path for references between them.
+     *
+     * @param root Root config references are resolved against
+     * @param path Path holding the beans, such as 'var'
+     * @return Graph of the children of path
+     */
+    @NotNull
+    static ReferenceGraph scan(@NotNull Config root, @NotNull String path) {
+        final ConfigObject beans = root.getObject(path);
+        final Map<String, Set<String>> dependencies = new LinkedHashMap<String, Set<String>>();
+        for (String key : beans.keySet()) {
+            dependencies.put(path + "." + ConfigUtil.joinPath(key), new LinkedHashSet<String>());
+        }
+        for (Map.Entry<String, ConfigValue> entry : beans.entrySet()) {
+            final Set<String> found = dependencies.get(path + "." + ConfigUtil.joinPath(entry.getKey()));
+            collect(entry.getValue(), dependencies.keySet(), found);
+        }
+        return new ReferenceGraph(dependencies);
+    }
+
+    private static void collect(ConfigValue value, Set<String> nodes, Set<String> found) {
+        if (value.valueType() == ConfigValueType.OBJECT) {
+            final ConfigObject object = (ConfigObject) value;
+            final ConfigValue ref = object.get("~ref");
+            if (ref != null && ref.valueType() == ConfigValueType.STRING) {
+                final String refKey = (String) ref.unwrapped();
+                if (nodes.contains(refKey)) {
+                    found.add(refKey);
+                }
+            }
+            for (ConfigValue child : object.values()) {
+                collect(child, nodes, found);
+            }
+        } else if (value.valueType() == ConfigValueType.LIST) {
+            for (ConfigValue child : (ConfigList) value) {
+                collect(child, nodes, found);
+            }
+        }
+    }
+
+    /**
+     * @return Reference keys of the nodes
+     */
+    @NotNull
+    Set<String> getNodes() {
+        return dependencies.keySet();
+    }
+
+    /**
+     * @param node Reference key of node
+     * @return Nodes that must be built before node
+     */
+    @NotNull
+    Set<String> getDependencies(@NotNull String node) {
+        final Set<String> found = dependencies.get(node);
+        return found == null ? Collections.<String>emptySet() : found;
+    }
+
+    /**
+     * Order the nodes so every node comes after its dependencies.
+     *
+     * @return Nodes in dependency order
+     * @throws RuntimeException with the full path if there is a cycle
+     */
+    @NotNull
+    List<String> order() {
+        final List<String> ordered = new ArrayList<String>(dependencies.size());
+        final Map<String, Boolean> visited = new HashMap<String, Boolean>();
+        for (String node : dependencies.keySet()) {
+            visit(node, visited, new ArrayList<String>(), ordered);
+        }
+        return ordered;
+    }
+
+    private void visit(String node, Map<String, Boolean> visited, List<String> path, List<String> ordered) {
+        final Boolean done = visited.get(node);
+        if (Boolean.TRUE.equals(done)) {
+            return;
+        }
+        path.add(node);
+        if (Boolean.FALSE.equals(done)) {
+            final StringBuilder cycle = new StringBuilder();
+            for (String step : path.subList(path.indexOf(node), path.size())) {
+                cycle.append(cycle.length() == 0 ? "" : " -> ").append(step);
+            }
+            throw new RuntimeException("Circular reference: " + cycle);
+        }
+        visited.put(node, Boolean.FALSE);
+        for (String dependency : getDependencies(node)) {
+            visit(dependency, visited, path, ordered);
+        }
+        visited.put(node, Boolean.TRUE);
+        path.remove(path.size() - 1);
+        ordered.add(node);
+    }
+}
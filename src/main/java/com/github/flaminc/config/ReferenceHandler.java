@@ -12,7 +12,8 @@ public interface ReferenceHandler {
      * Dereference key in some way specific to handler
      *
      * @param oriKey    Original reference key
-     * @param keyStr    Original key less first key in rendered form
+     * @param keyStr    Original key less first key in rendered form. Parsed once per reference key, so the same
+     *                  instance is passed for every use of a key while the key stays cached
      * @param config    Config where ref was requested
      * @param fieldType Type requested or null if unknown
      * @return Return object at reference
@@ -0,0 +1,385 @@
+package com.github.flaminc.config;
+
+import com.github.flaminc.config.collect.IntObjectMap;
+import com.github.flaminc.config.collect.LongObjectMap;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import com.typesafe.config.impl.ConfigBridge;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * References found ahead of binding a bean so they can be resolved together. The bean config is walked the same way
+ * binding will walk it, working out the type each '~ref' will be requested with; references to an
+ * {@link AsyncReferenceHandler} are started right away, and references to a {@link BatchReferenceHandler} are grouped
+ * by namespace and passed to the handler in one call by {@link #resolveBatches()}. Binding then takes each result by
+ * the config object the '~ref' is in. A reference requested with a different type than predicted is resolved again
+ * the normal way.
+ * <p/>
+ * Batch results are keyed by reference key alone, so a key asked for with more than one type is passed to the
+ * handler in a separate call for each type. A result that is not of the type its reference asked for is dropped and
+ * resolved again the normal way.
+ * <p/>
+ * Scanning and {@link #resolveBatches()} happen on one thread; after that the prefetch can be shared by the threads
+ * binding parts of the config, such as the chunks of {@link ConfiguratorUtil#bindAll(ConfigList, Class)}, and
+ * {@link #take(ConfigObject, Class)} may be called from any of them.
+ */
+class ReferencePrefetch {
+    private static final Logger log = LoggerFactory.getLogger(ReferencePrefetch.class);
+
+    /**
+     * Started references by the object holding the '~ref', compared by identity as equal configs at different
+     * places in the tree are different references
+     */
+    private final Map<ConfigObject, Pending> pending = new IdentityHashMap<ConfigObject, Pending>();
+
+    /**
+     * References to batch handlers by namespace, waiting on {@link #resolveBatches()}
+     */
+    private final Map<String, Batch> batches = new LinkedHashMap<String, Batch>();
+
+    private final ConfiguratorUtil util;
+
+    ReferencePrefetch(@NotNull ConfiguratorUtil util) {
+        this.util = util;
+    }
+
+    /**
+     * Executor async handlers are started on, virtual threads when the runtime has them
+     */
+    static Executor executor() {
+        return ExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Find the references in the config of a bean and start them.
+     *
+     * @param object   Bean config
+     * @param beanType Type of bean
+     */
+    void scanBean(@NotNull ConfigObject object, @NotNull Class<?> beanType) {
+        final BindingPlan plan = BindingPlan.of(beanType);
+        final BindingPlan.Creator creator = plan.getCreator();
+        if (creator != null) {
+            for (int i = 0; i < creator.getPaths().length; i++) {
+                final ConfigValue value = ConfigValues.valueAt(object, creator.getPaths()[i]);
+                if (value != null) {
+                    scanValue(value, creator.getTypes()[i], creator.getGenericTypes()[i]);
+                }
+            }
+        }
+        for (BindingPlan.WiredField wired : creator == null ? plan.getFields() : plan.getRemainingFields()) {
+            final ConfigValue value = ConfigValues.valueAt(object, wired.getPath());
+            if (value != null) {
+                scanValue(value, wired.getType(), wired.getGenericType());
+            }
+        }
+    }
+
+    /**
+     * Find the references in a value and start them.
+     *
+     * @param value Value to be bound
+     * @param type  Type the value is bound to, null if inferred
+     */
+    void scan(@NotNull ConfigValue value, @Nullable Class<?> type) {
+        scanValue(value, type, type);
+    }
+
+    /**
+     * @param declared    Type the value is converted to, null if inferred
+     * @param genericType Declared type of the value with its type arguments
+     */
+    private void scanValue(ConfigValue value, Class<?> declared, Type genericType) {
+        if (value.valueType() == ConfigValueType.OBJECT) {
+            scanObject((ConfigObject) value, declared, genericType);
+        } else if (value.valueType() == ConfigValueType.LIST) {
+            final ConfigList list = (ConfigList) value;
+            for (int i = 0; i < list.size(); i++) {
+                final Type elementType = elementType(declared, genericType, i);
+                scanValue(list.get(i), typeOf(elementType), elementType);
+            }
+        }
+    }
+
+    /**
+     * Type an element of a list is converted to, the same way binding converts it.
+     *
+     * @param index Position in the list, maps are listed as key then value
+     * @return Element type, null if the element is inferred
+     */
+    private static Type elementType(Class<?> declared, Type genericType, int index) {
+        if (declared == null) {
+            return null;
+        } else if (declared.isArray()) {
+            return declared.getComponentType();
+        } else if (declared == List.class || declared == Collection.class || declared == ArrayList.class ||
+                declared == Set.class || declared == LinkedHashSet.class) {
+            return GenericTypes.argument(genericType, 0);
+        } else if (declared == Map.class) {
+            return GenericTypes.argument(genericType, index % 2);
+        }
+        return index % 2 == 1 ? mapValueType(declared, genericType) : null;
+    }
+
+    /**
+     * @return Type map values are converted to, null if they are inferred or not objects
+     */
+    private static Type mapValueType(Class<?> declared, Type genericType) {
+        if (declared == Map.class) {
+            return GenericTypes.argument(genericType, 1);
+        } else if (declared == IntObjectMap.class || declared == LongObjectMap.class) {
+            return GenericTypes.argument(genericType, 0);
+        }
+        return null;
+    }
+
+    private static Class<?> typeOf(Type type) {
+        return GenericTypes.isUntyped(type) ? null : GenericTypes.rawClass(type);
+    }
+
+    private void scanObject(ConfigObject object, Class<?> declared, Type genericType) {
+        Class<?> type = declared;
+        final ConfigValue typeName = ConfigValues.valueAt(object, "~type");
+        if (typeName != null) {
+            type = util.findType(ConfigValues.toText(typeName, "path: ~type"));
+        }
+        final ConfigValue ref = ConfigValues.valueAt(object, "~ref");
+        if (ref != null) {
+            request(object, ConfigValues.toText(ref, "path: ~ref"), declared == null ? type : declared);
+            return;
+        }
+        final ConfigValue args = ConfigValues.valueAt(object, "~constructor");
+        if (args != null) {
+            // constructor arguments are inferred
+            scanValue(args, null, null);
+        } else if (type == null || type == Map.class || PrimitiveMaps.supports(type)) {
+            // type arguments only count for the declared type, not one named by '~type'
+            final Type valueType = type == declared ? mapValueType(type, genericType) : null;
+            for (Map.Entry<String, ConfigValue> entry : object.entrySet()) {
+                scanValue(entry.getValue(), typeOf(valueType), valueType);
+            }
+        } else {
+            scanBean(object, type);
+        }
+    }
+
+    private void request(ConfigObject object, String refKey, Class<?> fieldType) {
+        final Pair<String, String> split;
+        try {
+            split = ConfigBridge.pathToFirstRest(refKey);
+        } catch (RuntimeException e) {
+            // reported when bound
+            return;
+        }
+        final ReferenceHandler handler = util.getHandler(split.getLeft());
+        if (!(handler instanceof AsyncReferenceHandler) && !(handler instanceof BatchReferenceHandler)) {
+            return;
+        }
+        if (fieldType != null && fieldType.isInterface() && util.isLazy(object.toConfig())) {
+            // resolved on first use
+            return;
+        }
+        log.trace("prefetching reference {}", refKey);
+        if (handler instanceof BatchReferenceHandler) {
+            Batch batch = batches.get(split.getLeft());
+            if (batch == null) {
+                batch = new Batch((BatchReferenceHandler) handler);
+                batches.put(split.getLeft(), batch);
+            }
+            final CompletableFuture<Object> future = new CompletableFuture<Object>();
+            batch.add(object, new BatchReferenceHandler.Request(refKey, split.getRight(), object.toConfig(),
+                    fieldType), future);
+            pending.put(object, new Pending(fieldType, future));
+        } else {
+            pending.put(object, new Pending(fieldType, util.startAsync((AsyncReferenceHandler) handler, refKey,
+                    split.getRight(), object.toConfig(), fieldType)));
+        }
+    }
+
+    /**
+     * Call each batch handler once with every reference found for it. References the handler leaves out of its
+     * result are dropped so binding resolves them one at a time. A failed batch fails each of its references.
+     */
+    void resolveBatches() {
+        for (Map.Entry<String, Batch> entry : batches.entrySet()) {
+            final Batch batch = entry.getValue();
+            for (List<Integer> call : batch.calls()) {
+                log.debug("resolving {} references with handler '{}'", call.size(), entry.getKey());
+                resolveBatch(batch, call);
+            }
+        }
+        batches.clear();
+    }
+
+    /**
+     * @param call Positions in the batch of the requests to pass in one call
+     */
+    private void resolveBatch(Batch batch, List<Integer> call) {
+        final List<BatchReferenceHandler.Request> requests = new ArrayList<BatchReferenceHandler.Request>(call.size());
+        for (int i : call) {
+            requests.add(batch.requests.get(i));
+        }
+        final Map<String, ?> resolved;
+        try {
+            resolved = batch.handler.resolveAll(requests);
+        } catch (RuntimeException e) {
+            for (int i : call) {
+                batch.futures.get(i).completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i : call) {
+            final BatchReferenceHandler.Request request = batch.requests.get(i);
+            final String refKey = request.getOriKey();
+            if (resolved.containsKey(refKey) && fits(resolved.get(refKey), request.getFieldType())) {
+                batch.futures.get(i).complete(resolved.get(refKey));
+            } else {
+                pending.remove(batch.objects.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return True if value can be used where type was asked for
+     */
+    private static boolean fits(Object value, Class<?> type) {
+        if (type == null) {
+            return true;
+        } else if (value == null) {
+            return !type.isPrimitive();
+        }
+        return ClassUtils.primitiveToWrapper(type).isInstance(value);
+    }
+
+    synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Take the started reference for a '~ref' object.
+     *
+     * @param object    Object holding the '~ref'
+     * @param fieldType Type now requested
+     * @return Result to wait on, null if it was not started or was started for another type
+     */
+    @Nullable
+    synchronized CompletableFuture<Object> take(@NotNull ConfigObject object, @Nullable Class<?> fieldType) {
+        final Pending started = pending.get(object);
+        if (started == null || started.fieldType != fieldType) {
+            return null;
+        }
+        pending.remove(object);
+        return started.future;
+    }
+
+    /**
+     * Cancel references started but never taken.
+     */
+    synchronized void cancelRemaining() {
+        for (Pending started : pending.values()) {
+            started.future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    private static class Pending {
+        private final Class<?> fieldType;
+        private final CompletableFuture<Object> future;
+
+        private Pending(Class<?> fieldType, CompletableFuture<Object> future) {
+            this.fieldType = fieldType;
+            this.future = future;
+        }
+    }
+
+    private static class Batch {
+        private final BatchReferenceHandler handler;
+        private final List<ConfigObject> objects = new ArrayList<ConfigObject>();
+        private final List<BatchReferenceHandler.Request> requests = new ArrayList<BatchReferenceHandler.Request>();
+        private final List<CompletableFuture<Object>> futures = new ArrayList<CompletableFuture<Object>>();
+
+        private Batch(BatchReferenceHandler handler) {
+            this.handler = handler;
+        }
+
+        private void add(ConfigObject object, BatchReferenceHandler.Request request, CompletableFuture<Object> future) {
+            objects.add(object);
+            requests.add(request);
+            futures.add(future);
+        }
+
+        /**
+         * Split the requests in to calls where each key is asked for with one type only, usually a single call.
+         *
+         * @return Positions of the requests of each call
+         */
+        private List<List<Integer>> calls() {
+            final List<List<Integer>> calls = new ArrayList<List<Integer>>();
+            final List<Map<String, Class<?>>> types = new ArrayList<Map<String, Class<?>>>();
+            for (int i = 0; i < requests.size(); i++) {
+                final BatchReferenceHandler.Request request = requests.get(i);
+                int call = 0;
+                while (call < calls.size() && types.get(call).containsKey(request.getOriKey()) &&
+                        types.get(call).get(request.getOriKey()) != request.getFieldType()) {
+                    call++;
+                }
+                if (call == calls.size()) {
+                    calls.add(new ArrayList<Integer>());
+                    types.add(new HashMap<String, Class<?>>());
+                }
+                calls.get(call).add(i);
+                types.get(call).put(request.getOriKey(), request.getFieldType());
+            }
+            return calls;
+        }
+    }
+
+    private static class ExecutorHolder {
+        private static final Executor EXECUTOR = create();
+
+        private static Executor create() {
+            try {
+                final Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) virtual.invoke(null);
+            } catch (NoSuchMethodException e) {
+                log.debug("virtual threads not available, resolving references on a thread pool");
+            } catch (Exception e) {
+                log.warn("Cannot create virtual thread executor, resolving references on a thread pool", e);
+            }
+            final AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "config-reference-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Singletons built for '~ref: var.*' keys. Each key is built exactly once even when requested from many threads:
+ * the first thread to ask runs the build while the others wait on a per key future, so a slow build only blocks
+ * callers of the same key.
+ * <p/>
+ * Circular references are reported instead of deadlocking, both when the cycle happens on one thread and when two
+ * threads end up waiting on each other's keys.
+ */
+class ReferenceRegistry {
+
+    /**
+     * Returned by {@link #getBuilt(String)} when there is no built singleton, as a singleton may be null
+     */
+    static final Object NOT_BUILT = new Object();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Entry each thread is currently waiting on, used to find cycles across threads
+     */
+    private final ConcurrentMap<Thread, Entry> waiting = new ConcurrentHashMap<Thread, Entry>();
+
+    /**
+     * Keys being built by the current thread, outermost first
+     */
+    private final ThreadLocal<Deque<String>> building = new ThreadLocal<Deque<String>>() {
+        @Override
+        protected Deque<String> initialValue() {
+            return new ArrayDeque<String>();
+        }
+    };
+
+    /**
+     * Get the singleton for key, building it with builder if it has not been built yet. A failed build is not kept so
+     * a later call will try again.
+     *
+     * @param key     Reference key
+     * @param builder Builds the value on first request
+     * @return Singleton for key
+     */
+    <E> E get(@NotNull String key, @NotNull Callable<E> builder) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            final Entry created = new Entry(key, builder);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                build(created);
+            }
+        }
+        if (!entry.task.isDone()) {
+            await(entry);
+        }
+        try {
+            return (E) entry.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for reference '" + key + "'", e);
+        } catch (ExecutionException e) {
+            entries.remove(key, entry);
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Cannot build reference '" + key + "'", cause);
+        }
+    }
+
+    /**
+     * Get the singleton for key only if it is already built, without creating a builder for it.
+     *
+     * @param key Reference key
+     * @return Singleton for key, {@link #NOT_BUILT} if it is not built yet, still being built or failed
+     */
+    Object getBuilt(@NotNull String key) {
+        final Entry entry = entries.get(key);
+        if (entry == null || !entry.task.isDone()) {
+            return NOT_BUILT;
+        }
+        try {
+            return entry.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return NOT_BUILT;
+        } catch (ExecutionException e) {
+            // reported by get
+            return NOT_BUILT;
+        }
+    }
+
+    /**
+     * @return Singletons built so far by key, leaving out those still being built or failed
+     */
+    Map<String, Object> getAllBuilt() {
+        final Map<String, Object> built = new LinkedHashMap<String, Object>();
+        for (String key : entries.keySet()) {
+            final Object value = getBuilt(key);
+            if (value != NOT_BUILT) {
+                built.put(key, value);
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Register a singleton built elsewhere, unless key already has one.
+     *
+     * @param key   Reference key
+     * @param value Singleton for key
+     */
+    void putBuilt(@NotNull String key, @Nullable final Object value) {
+        final Entry entry = new Entry(key, new Callable<Object>() {
+            @Override
+            public Object call() {
+                return value;
+            }
+        });
+        entry.task.run();
+        entry.owner = null;
+        entries.putIfAbsent(key, entry);
+    }
+
+    /**
+     * @return Number of references built or being built
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private void build(Entry entry) {
+        final Deque<String> stack = building.get();
+        stack.addLast(entry.key);
+        try {
+            entry.task.run();
+        } finally {
+            stack.removeLast();
+            entry.owner = null;
+        }
+    }
+
+    private void await(Entry entry) {
+        final Thread current = Thread.currentThread();
+        // registered before looking so of two threads closing a cycle at once, the later one always sees the other
+        waiting.put(current, entry);
+        try {
+            checkCycle(entry, current);
+            entry.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for reference '" + entry.key + "'", e);
+        } catch (ExecutionException e) {
+            // reported by caller
+        } finally {
+            waiting.remove(current);
+        }
+    }
+
+    private void checkCycle(Entry entry, Thread current) {
+        final List<String> path = new ArrayList<String>();
+        Entry next = entry;
+        while (next != null) {
+            if (path.contains(next.key)) {
+                // a cycle between other threads, they report it themselves
+                return;
+            }
+            path.add(next.key);
+            final Thread owner = next.owner;
+            if (owner == null) {
+                return;
+            }
+            if (owner == current) {
+                throw new RuntimeException("Circular reference: " + describe(path));
+            }
+            next = waiting.get(owner);
+        }
+    }
+
+    private String describe(List<String> waitChain) {
+        // keys this thread is building from the start of the cycle, then the keys waited on back to it
+        final String start = waitChain.get(waitChain.size() - 1);
+        final StringBuilder description = new StringBuilder();
+        boolean found = false;
+        for (String key : building.get()) {
+            found = found || key.equals(start);
+            if (found) {
+                description.append(key).append(" -> ");
+            }
+        }
+        for (int i = 0; i < waitChain.size(); i++) {
+            description.append(waitChain.get(i)).append(i + 1 < waitChain.size() ? " -> " : "");
+        }
+        return description.toString();
+    }
+
+    private static class Entry {
+        private final String key;
+        private final FutureTask<Object> task;
+        /**
+         * Thread running the build, null once done
+         */
+        private volatile Thread owner;
+
+        private Entry(String key, Callable<?> builder) {
+            this.key = key;
+            this.task = new FutureTask<Object>((Callable<Object>) builder);
+            this.owner = Thread.currentThread();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.flaminc.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves '~type' names to classes. Short aliases registered on the resolver are checked first, then the class is
+ * looked up through the context class loader (falling back to the loader of this library).
+ * <p/>
+ * Lookups are cached per (class loader, name), including names a loader does not have, so a class added to a loader
+ * after it was looked up there is not found. Both the loader and the loaded classes are only weakly held, so a
+ * discarded webapp class loader can still be collected.
+ */
+class TypeResolver {
+
+    private static final ConcurrentMap<LoaderKey, ConcurrentMap<String, WeakReference<Class<?>>>> loaderCache =
+            new ConcurrentHashMap<LoaderKey, ConcurrentMap<String, WeakReference<Class<?>>>>();
+
+    /**
+     * Cached for names a loader does not have, so a class only found in the library loader does not ask the context
+     * loader again on every lookup
+     */
+    private static final WeakReference<Class<?>> NOT_FOUND = new WeakReference<Class<?>>(null);
+
+    private static final ReferenceQueue<ClassLoader> collected = new ReferenceQueue<ClassLoader>();
+
+    private final ConcurrentMap<String, Class<?>> aliases = new ConcurrentHashMap<String, Class<?>>();
+
+    /**
+     * Register a short name that can be used in place of the full class name.
+     *
+     * @param alias Short name, such as 'url'
+     * @param type  Class the name stands for
+     */
+    void addAlias(@NotNull String alias, @NotNull Class<?> type) {
+        aliases.put(alias, type);
+    }
+
+    /**
+     * Resolve type name to a class.
+     *
+     * @param name Alias or fully qualified class name
+     * @return Class for name
+     * @throws ClassNotFoundException when no alias or class exists for name
+     */
+    @NotNull
+    <E> Class<E> resolve(@NotNull String name) throws ClassNotFoundException {
+        final Class<?> aliased = aliases.get(name);
+        if (aliased != null) {
+            return (Class<E>) aliased;
+        }
+        final ClassLoader context = Thread.currentThread().getContextClassLoader();
+        final ClassLoader own = TypeResolver.class.getClassLoader();
+        if (context != null && context != own) {
+            final Class<?> type = find(name, context);
+            if (type != null) {
+                return (Class<E>) type;
+            }
+        }
+        final Class<?> type = find(name, own);
+        if (type == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return (Class<E>) type;
+    }
+
+    /**
+     * @return Class for name in loader, null if the loader does not have it
+     */
+    private static Class<?> find(String name, ClassLoader loader) {
+        expungeCollected();
+        final LoaderKey lookup = new LoaderKey(loader, null);
+        ConcurrentMap<String, WeakReference<Class<?>>> classes = loaderCache.get(lookup);
+        if (classes == null) {
+            classes = new ConcurrentHashMap<String, WeakReference<Class<?>>>();
+            final ConcurrentMap<String, WeakReference<Class<?>>> previous =
+                    loaderCache.putIfAbsent(new LoaderKey(loader, collected), classes);
+            if (previous != null) {
+                classes = previous;
+            }
+        }
+
+        final WeakReference<Class<?>> cached = classes.get(name);
+        if (cached == NOT_FOUND) {
+            return null;
+        }
+        Class<?> type = cached == null ? null : cached.get();
+        if (type == null) {
+            try {
+                type = Class.forName(name, true, loader);
+            } catch (ClassNotFoundException e) {
+                classes.put(name, NOT_FOUND);
+                return null;
+            }
+            classes.put(name, new WeakReference<Class<?>>(type));
+        }
+        return type;
+    }
+
+    private static void expungeCollected() {
+        Reference<? extends ClassLoader> ref;
+        while ((ref = collected.poll()) != null) {
+            loaderCache.remove(ref);
+        }
+    }
+
+    /**
+     * Identity based weak key for a class loader. A null loader stands for the bootstrap loader.
+     */
+    private static class LoaderKey extends WeakReference<ClassLoader> {
+        private final int hash;
+
+        private LoaderKey(ClassLoader loader, ReferenceQueue<ClassLoader> queue) {
+            super(loader, queue);
+            this.hash = System.identityHashCode(loader);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LoaderKey)) return false;
+
+            final ClassLoader loader = get();
+            return loader != null && loader == ((LoaderKey) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.flaminc.config.collect;
+
+/**
+ * Open addressing hash map from {@code int} keys to {@code double} values, held in primitive arrays so entries cost
+ * no boxing and no entry objects. Meant for large, read mostly tables loaded from config; create it with the expected
+ * size to avoid rehashing while it fills. Also a {@code Map<Integer, Double>}, boxing on each call. Not thread safe.
+ */
+public class IntDoubleMap extends IntKeyTable<Double> {
+    private double[] values;
+
+    public IntDoubleMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Number of entries the map will hold without rehashing
+     */
+    public IntDoubleMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * @param key Key to look up
+     * @return Value for key or 0.0 if absent
+     */
+    public double get(int key) {
+        return get(key, 0.0);
+    }
+
+    /**
+     * @param key          Key to look up
+     * @param defaultValue Value returned if key is absent
+     * @return Value for key or defaultValue
+     */
+    public double get(int key, double defaultValue) {
+        final int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Set value of key, replacing any previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     */
+    public void put(int key, double value) {
+        final int index = insert(key);
+        values[index] = value;
+    }
+
+    /**
+     * Remove key.
+     *
+     * @param key Key
+     * @return True if key was present
+     */
+    public boolean remove(int key) {
+        return removeKey(key);
+    }
+
+    @Override
+    Object allocateValues(int length) {
+        final double[] replaced = values;
+        values = new double[length];
+        return replaced;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void copyValue(Object from, int fromIndex, int toIndex) {
+        values[toIndex] = ((double[]) from)[fromIndex];
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = 0.0;
+    }
+
+    @Override
+    Double boxedValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    void setBoxedValue(int index, Double value) {
+        values[index] = value;
+    }
+}
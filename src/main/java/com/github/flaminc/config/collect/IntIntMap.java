@@ -0,0 +1,92 @@
+package com.github.flaminc.config.collect;
+
+/**
+ * Open addressing hash map from {@code int} keys to {@code int} values, held in primitive arrays so entries cost
+ * no boxing and no entry objects. Meant for large, read mostly tables loaded from config; create it with the expected
+ * size to avoid rehashing while it fills. Also a {@code Map<Integer, Integer>}, boxing on each call. Not thread safe.
+ */
+public class IntIntMap extends IntKeyTable<Integer> {
+    private int[] values;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Number of entries the map will hold without rehashing
+     */
+    public IntIntMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * @param key Key to look up
+     * @return Value for key or 0 if absent
+     */
+    public int get(int key) {
+        return get(key, 0);
+    }
+
+    /**
+     * @param key          Key to look up
+     * @param defaultValue Value returned if key is absent
+     * @return Value for key or defaultValue
+     */
+    public int get(int key, int defaultValue) {
+        final int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Set value of key, replacing any previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     */
+    public void put(int key, int value) {
+        final int index = insert(key);
+        values[index] = value;
+    }
+
+    /**
+     * Remove key.
+     *
+     * @param key Key
+     * @return True if key was present
+     */
+    public boolean remove(int key) {
+        return removeKey(key);
+    }
+
+    @Override
+    Object allocateValues(int length) {
+        final int[] replaced = values;
+        values = new int[length];
+        return replaced;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void copyValue(Object from, int fromIndex, int toIndex) {
+        values[toIndex] = ((int[]) from)[fromIndex];
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = 0;
+    }
+
+    @Override
+    Integer boxedValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    void setBoxedValue(int index, Integer value) {
+        values[index] = value;
+    }
+}
@@ -0,0 +1,369 @@
+package com.github.flaminc.config.collect;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open addressing table of {@code long} keys shared by the long keyed maps. Keys are probed linearly in a long array;
+ * each map keeps its values in an array of its own value type at the same index as the key. Key 0 marks a free slot,
+ * so its value is kept at the extra last index of the value array.
+ * <p/>
+ * The {@link Map} methods box keys and values, the primitive methods of each map do not. Removal works through the
+ * views and their iterators. Maps of primitive values reject a null value without changing the map. Not thread safe.
+ */
+abstract class LongKeyTable<V> extends AbstractMap<Long, V> {
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private boolean hasZeroKey;
+
+    LongKeyTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final long needed = (long) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR);
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * @return Value array replaced, null on the first call
+     */
+    private Object allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        return allocateValues(capacity + 1);
+    }
+
+    /**
+     * Replace the value array with an empty one. Called from the constructor, so the value array field must not
+     * have an initializer.
+     *
+     * @param length Slots plus one for key 0
+     * @return Value array replaced
+     */
+    abstract Object allocateValues(int length);
+
+    abstract void moveValue(int from, int to);
+
+    /**
+     * @param from Value array returned by {@link #allocateValues(int)}
+     */
+    abstract void copyValue(Object from, int fromIndex, int toIndex);
+
+    abstract void clearValue(int index);
+
+    abstract V boxedValue(int index);
+
+    abstract void setBoxedValue(int index, V value);
+
+    /**
+     * @return True if null can be stored as a value, false for maps of primitive values
+     */
+    boolean allowsNullValues() {
+        return false;
+    }
+
+    private int slot(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * @return Index of the value of key, -1 if absent
+     */
+    final int indexOf(long key) {
+        if (key == 0) {
+            return hasZeroKey ? keys.length : -1;
+        }
+        for (int i = slot(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add key if absent, growing the table first if needed. Take the value array only after this returns.
+     *
+     * @return Index to write the value of key at
+     */
+    final int insert(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return keys.length;
+        }
+        int i = slot(key);
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        if (size - (hasZeroKey ? 1 : 0) + 1 > resizeAt) {
+            rehash(keys.length << 1);
+            i = slot(key);
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+        }
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    /**
+     * @return True if key was present
+     */
+    final boolean removeKey(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            clearValue(keys.length);
+            size--;
+            return true;
+        }
+        for (int i = slot(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                shiftKeys(i);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Close the gap left at slot by moving later entries of the same probe run back.
+     */
+    private void shiftKeys(int gap) {
+        for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            final int home = slot(keys[i]);
+            // move entry if its home slot is not between the gap and its current slot
+            if (gap <= i ? (home <= gap || home > i) : (home <= gap && home > i)) {
+                keys[gap] = keys[i];
+                moveValue(i, gap);
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        clearValue(gap);
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final Object oldValues = allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                copyValue(oldValues, i, slot);
+            }
+        }
+        copyValue(oldValues, oldKeys.length, keys.length);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return Copy of the keys in no particular order
+     */
+    public long[] keys() {
+        final long[] found = new long[size];
+        int count = 0;
+        if (hasZeroKey) {
+            found[count++] = 0;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                found[count++] = key;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param from Index to start at, keys.length for key 0 alone
+     * @return Keys at from and after it in table order
+     */
+    private long[] keysFrom(int from) {
+        int count = from <= keys.length && hasZeroKey ? 1 : 0;
+        for (int i = from; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                count++;
+            }
+        }
+        final long[] found = new long[count];
+        int index = 0;
+        for (int i = from; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                found[index++] = keys[i];
+            }
+        }
+        if (index < count) {
+            found[index] = 0;
+        }
+        return found;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && indexOf((Long) key) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        final int index = key instanceof Long ? indexOf((Long) key) : -1;
+        return index < 0 ? null : boxedValue(index);
+    }
+
+    @Override
+    public V put(Long key, V value) {
+        if (value == null && !allowsNullValues()) {
+            throw new NullPointerException("Null value for key " + key);
+        }
+        final int found = indexOf(key);
+        final V previous = found < 0 ? null : boxedValue(found);
+        final int index = insert(key);
+        setBoxedValue(index, value);
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof Long)) {
+            return null;
+        }
+        final int found = indexOf((Long) key);
+        if (found < 0) {
+            return null;
+        }
+        final V previous = boxedValue(found);
+        removeKey((Long) key);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        hasZeroKey = false;
+        allocate(keys.length);
+    }
+
+    @Override
+    public Set<Map.Entry<Long, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Long, V>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<Long, V>> iterator() {
+                return new Iterator<Map.Entry<Long, V>>() {
+                    /**
+                     * Next index to look at, keys.length for key 0
+                     */
+                    private int next = advance(0);
+
+                    /**
+                     * Keys not visited yet, taken on the first remove as removing shifts later keys back in the table
+                     */
+                    private long[] remaining;
+
+                    private int remainingIndex;
+
+                    private long lastKey;
+
+                    private boolean canRemove;
+
+                    private int advance(int from) {
+                        int i = from;
+                        while (i < keys.length && keys[i] == 0) {
+                            i++;
+                        }
+                        return i == keys.length && !hasZeroKey ? i + 1 : i;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining == null ? next <= keys.length : remainingIndex < remaining.length;
+                    }
+
+                    @Override
+                    public Map.Entry<Long, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final int index;
+                        if (remaining == null) {
+                            index = next;
+                            lastKey = index == keys.length ? 0 : keys[index];
+                            next = index == keys.length ? index + 1 : advance(index + 1);
+                        } else {
+                            lastKey = remaining[remainingIndex++];
+                            index = indexOf(lastKey);
+                        }
+                        canRemove = true;
+                        return new SimpleImmutableEntry<Long, V>(lastKey, boxedValue(index));
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (!canRemove) {
+                            throw new IllegalStateException("next() not called or already removed");
+                        }
+                        canRemove = false;
+                        if (remaining == null) {
+                            remaining = keysFrom(next);
+                        }
+                        removeKey(lastKey);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        final long[] sorted = keys();
+        Arrays.sort(sorted);
+        final StringBuilder builder = new StringBuilder("{");
+        for (long key : sorted) {
+            builder.append(builder.length() == 1 ? "" : ", ").append(key).append('=')
+                    .append(boxedValue(indexOf(key)));
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.flaminc.config.collect;
+
+/**
+ * Open addressing hash map from {@code long} keys to object values, held in a key array and a value array so entries
+ * cost no key boxing and no entry objects. Meant for large, read mostly tables loaded from config; create it with the
+ * expected size to avoid rehashing while it fills. Also a {@code Map<Long, V>}, boxing the key on each call. Not
+ * thread safe.
+ */
+public class LongObjectMap<V> extends LongKeyTable<V> {
+    private Object[] values;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Number of entries the map will hold without rehashing
+     */
+    public LongObjectMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * @param key Key to look up
+     * @return Value for key or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /**
+     * Set value of key, replacing any previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     */
+    public void put(long key, V value) {
+        final int index = insert(key);
+        values[index] = value;
+    }
+
+    /**
+     * Remove key.
+     *
+     * @param key Key
+     * @return True if key was present
+     */
+    public boolean remove(long key) {
+        return removeKey(key);
+    }
+
+    @Override
+    boolean allowsNullValues() {
+        return true;
+    }
+
+    @Override
+    Object allocateValues(int length) {
+        final Object[] replaced = values;
+        values = new Object[length];
+        return replaced;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void copyValue(Object from, int fromIndex, int toIndex) {
+        values[toIndex] = ((Object[]) from)[fromIndex];
+    }
+
+    @Override
+    void clearValue(int index) {
+        values[index] = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V boxedValue(int index) {
+        return (V) values[index];
+    }
+
+    @Override
+    void setBoxedValue(int index, V value) {
+        values[index] = value;
+    }
+}
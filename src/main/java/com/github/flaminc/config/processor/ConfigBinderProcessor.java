@@ -0,0 +1,295 @@
+package com.github.flaminc.config.processor;
+
+import com.github.flaminc.config.ConfigBinder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a {@link ConfigBinder} for every class with {@link Resource} fields or {@link PostConstruct} methods so
+ * the class can be bound without reflection. Binders look each field up on the root object of the bean config with
+ * {@link com.github.flaminc.config.ConfiguratorUtil#getFieldValue(com.typesafe.config.ConfigObject, String)}, convert
+ * it with {@link com.github.flaminc.config.ConfiguratorUtil#convertField} and assign the field directly, or through
+ * its setter when the field is not visible from the package of the class. Fields declared with type arguments, such
+ * as {@code Map<Integer, Integer>}, pass their declared type read once from the field so entries are converted the
+ * same as with reflection.
+ * <p/>
+ * Classes with a wired field that can be neither assigned nor set (private without a setter, or final) are skipped
+ * and keep using reflection.
+ * <p/>
+ * The processor is opt in, it is not registered as a service. Enable it with the {@code -processor} javac option or
+ * the {@code annotationProcessors} setting of the maven compiler plugin.
+ */
+@SupportedAnnotationTypes({"javax.annotation.Resource", "javax.annotation.PostConstruct"})
+public class ConfigBinderProcessor extends AbstractProcessor {
+
+    private final Set<String> generated = new LinkedHashSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Set<TypeElement> beans = new LinkedHashSet<TypeElement>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Resource.class)) {
+            if (element.getKind() == ElementKind.FIELD) {
+                beans.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(PostConstruct.class)) {
+            if (element.getKind() == ElementKind.METHOD) {
+                beans.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        for (TypeElement bean : beans) {
+            if (generated.add(bean.getQualifiedName().toString())) {
+                generate(bean);
+            }
+        }
+        // other processors may also want these annotations
+        return false;
+    }
+
+    private void generate(TypeElement bean) {
+        if (!isBindable(bean)) {
+            note(bean, "not generating binder for " + bean + ", class is not a visible concrete top level or " +
+                    "static nested class");
+            return;
+        }
+        final String packageName = getPackage(bean).getQualifiedName().toString();
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(bean).toString();
+        final String binderName = (packageName.isEmpty() ? binaryName :
+                binaryName.substring(packageName.length() + 1)) + ConfigBinder.SUFFIX;
+        final String beanType = processingEnv.getTypeUtils().erasure(bean.asType()).toString();
+
+        final StringBuilder bind = new StringBuilder();
+        final StringBuilder genericTypes = new StringBuilder();
+        final Set<String> names = new LinkedHashSet<String>();
+        for (VariableElement field : getWiredFields(bean)) {
+            final String name = field.getSimpleName().toString();
+            if (!names.add(name)) {
+                note(bean, "not generating binder for " + bean + ", field " + name + " hides a super class field");
+                return;
+            }
+            final String fieldType = processingEnv.getTypeUtils().erasure(field.asType()).toString();
+            final String value;
+            if (isParameterized(field.asType())) {
+                final String constant = "TYPE_" + name;
+                final String declaringType = processingEnv.getTypeUtils()
+                        .erasure(field.getEnclosingElement().asType()).toString();
+                genericTypes.append("    private static final java.lang.reflect.Type ").append(constant)
+                        .append(" = genericType(").append(declaringType).append(".class, \"").append(name)
+                        .append("\");\n");
+                value = "util.convertField(config, value, \"" + name + "\", " + fieldType + ".class, " + constant + ")";
+            } else {
+                value = "util.convertField(config, value, \"" + name + "\", " + fieldType + ".class, " + fieldType +
+                        ".class)";
+            }
+            final String assignment;
+            if (canAssign(field, packageName)) {
+                assignment = "instance." + name + " = " + value + ";";
+            } else {
+                final ExecutableElement setter = findSetter(bean, field, packageName);
+                if (setter == null) {
+                    note(bean, "not generating binder for " + bean + ", field " + name +
+                            " is not visible and has no setter");
+                    return;
+                }
+                assignment = "instance." + setter.getSimpleName() + "(" + value + ");";
+            }
+            if (bind.length() == 0) {
+                bind.append("        final com.typesafe.config.ConfigObject root = config.root();\n")
+                        .append("        com.typesafe.config.ConfigValue value;\n");
+            }
+            bind.append("        value = util.getFieldValue(root, \"").append(name).append("\");\n")
+                    .append("        if (value != null) {\n")
+                    .append("            ").append(assignment).append("\n")
+                    .append("        }\n");
+        }
+
+        final StringBuilder postConstruct = new StringBuilder();
+        for (ExecutableElement method : getPostConstructs(bean)) {
+            postConstruct.append("            instance.").append(method.getSimpleName()).append("();\n");
+        }
+
+        final StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Generated by ").append(ConfigBinderProcessor.class.getName()).append(", do not edit.\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(binderName)
+                .append(" implements ").append(ConfigBinder.class.getName()).append("<").append(beanType)
+                .append("> {\n\n");
+        if (genericTypes.length() > 0) {
+            source.append(genericTypes).append("\n");
+        }
+        source.append("    @Override\n")
+                .append("    public void bind(com.github.flaminc.config.ConfiguratorUtil util,\n")
+                .append("                     com.typesafe.config.Config config,\n")
+                .append("                     ").append(beanType).append(" instance) {\n")
+                .append(bind)
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void postConstruct(").append(beanType).append(" instance) {\n");
+        if (postConstruct.length() > 0) {
+            source.append("        try {\n")
+                    .append(postConstruct)
+                    .append("        } catch (Exception e) {\n")
+                    .append("            throw new RuntimeException(\"Cannot call PostConstruct\", e);\n")
+                    .append("        }\n");
+        }
+        source.append("    }\n");
+        if (genericTypes.length() > 0) {
+            source.append("\n")
+                    .append("    private static java.lang.reflect.Type genericType(Class<?> type, String name) {\n")
+                    .append("        try {\n")
+                    .append("            return type.getDeclaredField(name).getGenericType();\n")
+                    .append("        } catch (NoSuchFieldException e) {\n")
+                    .append("            throw new RuntimeException(\"Cannot find field \" + name, e);\n")
+                    .append("        }\n")
+                    .append("    }\n");
+        }
+        source.append("}\n");
+
+        try {
+            final String qualifiedName = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, bean);
+            final Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write binder for " + bean + ": " + e.getMessage(), bean);
+        }
+    }
+
+    private static boolean isParameterized(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty();
+    }
+
+    private boolean isBindable(TypeElement bean) {
+        if (bean.getKind() != ElementKind.CLASS || bean.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (Element current = bean; current.getKind() != ElementKind.PACKAGE;
+             current = current.getEnclosingElement()) {
+            final TypeElement type = (TypeElement) current;
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (type.getNestingKind() != NestingKind.TOP_LEVEL && !type.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wired fields, super class fields first, the same order reflection uses.
+     */
+    private List<VariableElement> getWiredFields(TypeElement bean) {
+        final List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        for (TypeElement current = bean; current != null; current = getSuperclass(current)) {
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+
+        final List<VariableElement> fields = new ArrayList<VariableElement>();
+        for (TypeElement type : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (field.getAnnotation(Resource.class) != null && !field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement getSuperclass(TypeElement type) {
+        final TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        final TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return Object.class.getName().equals(element.getQualifiedName().toString()) ? null : element;
+    }
+
+    private List<ExecutableElement> getPostConstructs(TypeElement bean) {
+        final List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(bean))) {
+            if (method.getAnnotation(PostConstruct.class) != null && method.getModifiers().contains(Modifier.PUBLIC)
+                    && !method.getModifiers().contains(Modifier.STATIC) && method.getParameters().isEmpty()) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private boolean canAssign(VariableElement field, String packageName) {
+        final Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC) ||
+                getPackage(field).getQualifiedName().contentEquals(packageName);
+    }
+
+    private ExecutableElement findSetter(TypeElement bean, VariableElement field, String packageName) {
+        final String name = field.getSimpleName().toString();
+        final String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(bean))) {
+            final Set<Modifier> modifiers = method.getModifiers();
+            if (method.getSimpleName().contentEquals(setterName) && method.getParameters().size() == 1
+                    && !modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.PRIVATE)
+                    && (modifiers.contains(Modifier.PUBLIC) ||
+                    getPackage(method).getQualifiedName().contentEquals(packageName))
+                    && processingEnv.getTypeUtils().isSameType(
+                    processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType()),
+                    processingEnv.getTypeUtils().erasure(field.asType()))) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private PackageElement getPackage(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+}
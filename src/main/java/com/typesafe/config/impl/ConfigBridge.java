@@ -1,17 +1,43 @@
 package com.typesafe.config.impl;
 
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigOrigin;
 import com.typesafe.config.ConfigValue;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Chris Flaming 1/15/2015
  */
 public class ConfigBridge {
 
+    /**
+     * Most reference keys that are kept parsed. Past that a clock hand goes round the cached keys, giving each key used
+     * since the hand last passed a second chance, and the first key found unused is dropped
+     */
+    static final int MAX_CACHED_PATHS = 4096;
+
+    private static final ConcurrentMap<String, CachedSplit> firstRestCache =
+            new ConcurrentHashMap<String, CachedSplit>();
+
+    /**
+     * Cached keys in the order they were added, swept by a clock hand to pick the key to drop. Also the lock for
+     * adding keys, lookups do not take it.
+     */
+    private static final String[] cachedKeys = new String[MAX_CACHED_PATHS];
+
+    private static int cachedCount;
+
+    private static int clockHand;
+
     private ConfigBridge() {
 
     }
@@ -25,11 +51,167 @@ public class ConfigBridge {
         return config.root().entrySet();
     }
 
+    /**
+     * Split a path in to its first key and the rendered remainder. Results are cached, reference keys are repeated
+     * all over a config so after the first use of each key this is a single map lookup. The cache holds up to
+     * {@link #MAX_CACHED_PATHS} keys and, once full, drops a key not used since the clock hand last passed it.
+     *
+     * @param pathStr Path with at least 2 parts
+     * @return First key and rendered remainder
+     */
     public static Pair<String, String> pathToFirstRest(String pathStr) {
+        final CachedSplit cached = firstRestCache.get(pathStr);
+        if (cached != null) {
+            if (!cached.used) {
+                cached.used = true;
+            }
+            return cached.split;
+        }
         Path path = Path.newPath(pathStr);
         if (path.first() == null || path.remainder() == null) {
             throw new RuntimeException("Expected path to have at least 2 parts in [" + pathStr + "]");
         }
-        return Pair.of(path.first(), path.remainder().render());
+        final Pair<String, String> split = Pair.of(path.first(), path.remainder().render());
+        cache(pathStr, split);
+        return split;
+    }
+
+    /**
+     * Add a key, replacing the first key the clock hand finds that was not used since the hand last passed it.
+     */
+    private static void cache(String pathStr, Pair<String, String> split) {
+        synchronized (cachedKeys) {
+            if (firstRestCache.containsKey(pathStr)) {
+                return;
+            }
+            final int slot;
+            if (cachedCount < cachedKeys.length) {
+                slot = cachedCount++;
+            } else {
+                CachedSplit candidate = firstRestCache.get(cachedKeys[clockHand]);
+                while (candidate.used) {
+                    candidate.used = false;
+                    clockHand = (clockHand + 1) % cachedKeys.length;
+                    candidate = firstRestCache.get(cachedKeys[clockHand]);
+                }
+                firstRestCache.remove(cachedKeys[clockHand]);
+                slot = clockHand;
+                clockHand = (clockHand + 1) % cachedKeys.length;
+            }
+            cachedKeys[slot] = pathStr;
+            firstRestCache.put(pathStr, new CachedSplit(split));
+        }
+    }
+
+    /**
+     * @param value Config value
+     * @return True if value is a whole number (int or long)
+     */
+    public static boolean isWholeNumber(ConfigValue value) {
+        return value instanceof ConfigInt || value instanceof ConfigLong;
+    }
+
+    /**
+     * Number value without boxing it as {@link ConfigValue#unwrapped()} does.
+     *
+     * @param value Config value of type NUMBER
+     * @return Value as long, doubles are truncated
+     */
+    public static long longValue(ConfigValue value) {
+        return ((ConfigNumber) value).longValue();
+    }
+
+    /**
+     * Number value without boxing it as {@link ConfigValue#unwrapped()} does.
+     *
+     * @param value Config value of type NUMBER
+     * @return Value as double
+     */
+    public static double doubleValue(ConfigValue value) {
+        return ((ConfigNumber) value).doubleValue();
+    }
+
+    /**
+     * @param value Config value of type NUMBER
+     * @return Number as it was written, such as 1.10 or 08080
+     */
+    public static String numberText(ConfigValue value) {
+        return ((ConfigNumber) value).transformToString();
+    }
+
+    /**
+     * @param description Where the values come from
+     * @return Origin to build values with
+     */
+    public static ConfigOrigin newOrigin(String description) {
+        return SimpleConfigOrigin.newSimple(description);
+    }
+
+    /**
+     * @param origin Origin of the value
+     * @param number Value of the number
+     * @param text   Number as it was written, rendered and read as a string in its place
+     * @return Config value of type NUMBER
+     */
+    public static ConfigValue newNumber(ConfigOrigin origin, long number, String text) {
+        return ConfigNumber.newNumber(origin, number, text);
+    }
+
+    /**
+     * @param origin Origin of the value
+     * @param number Value of the number
+     * @param text   Number as it was written, rendered and read as a string in its place
+     * @return Config value of type NUMBER
+     */
+    public static ConfigValue newNumber(ConfigOrigin origin, double number, String text) {
+        return ConfigNumber.newNumber(origin, number, text);
+    }
+
+    /**
+     * @param origin Origin of the value
+     * @param value  String, Boolean or null
+     * @return Config value of the matching type
+     */
+    public static ConfigValue newScalar(ConfigOrigin origin, Object value) {
+        return ConfigImpl.fromAnyRef(value, origin, FromMapMode.KEYS_ARE_KEYS);
+    }
+
+    /**
+     * @param origin   Origin of the list
+     * @param elements Config values made by this class
+     * @return Config value of type LIST
+     */
+    public static ConfigValue newList(ConfigOrigin origin, List<ConfigValue> elements) {
+        final List<AbstractConfigValue> values = new ArrayList<AbstractConfigValue>(elements.size());
+        for (ConfigValue element : elements) {
+            values.add((AbstractConfigValue) element);
+        }
+        return new SimpleConfigList(origin, values);
+    }
+
+    /**
+     * @param origin Origin of the object
+     * @param fields Config values made by this class by key
+     * @return Config value of type OBJECT
+     */
+    public static ConfigObject newObject(ConfigOrigin origin, Map<String, ConfigValue> fields) {
+        final Map<String, AbstractConfigValue> values = new HashMap<String, AbstractConfigValue>(
+                (int) (fields.size() / 0.75f) + 1);
+        for (Map.Entry<String, ConfigValue> entry : fields.entrySet()) {
+            values.put(entry.getKey(), (AbstractConfigValue) entry.getValue());
+        }
+        return new SimpleConfigObject(origin, values);
+    }
+
+    private static class CachedSplit {
+        private final Pair<String, String> split;
+        /**
+         * Set on lookup, cleared as the clock hand passes
+         */
+        private volatile boolean used;
+
+        private CachedSplit(Pair<String, String> split) {
+            this.split = split;
+        }
     }
 }
@@ -0,0 +1,71 @@
+package com.github.flaminc.config;
+
+import com.github.flaminc.config.test.SimpleBean;
+import com.typesafe.config.ConfigFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BeanIteratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ConfiguratorUtil util = ConfiguratorUtil.withConfig(ConfigFactory.parseString("var.x.value: ref"));
+
+    @Test
+    public void testIterateFile() throws Exception {
+        final File file = folder.newFile("beans.conf");
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write(("# routes\n" +
+                "[\n" +
+                "  {value: \"a, ] {\"}, {value: b} // trailing comment ]\n" +
+                "  {\n" +
+                "    # nested comment }\n" +
+                "    value: \"\"\"c \"quoted\" [\"\"\"\n" +
+                "  }\n" +
+                "  {~ref: var.x}\n" +
+                "  {~constructor: [d]},\n" +
+                "  {value: ${?missing}}\n" +
+                "]\n").getBytes("UTF-8"));
+        out.close();
+
+        final List<String> values = new ArrayList<String>();
+        final BeanIterator<SimpleBean> beans = util.iterateList(file, SimpleBean.class);
+        while (beans.hasNext()) {
+            values.add(beans.next().getValue());
+        }
+        assertThat(values).containsExactly("a, ] {", "b", "c \"quoted\" [", "ref", "d", null);
+    }
+
+    @Test
+    public void testStreamValues() throws Exception {
+        final BeanIterator<Integer> numbers = util.iterateList(
+                new ByteArrayInputStream("[1, 2\n3,\n\n\"4\"]".getBytes("UTF-8")), Integer.class);
+        assertThat(numbers.stream().collect(toList())).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    public void testBadElement() throws Exception {
+        final BeanIterator<Integer> numbers = util.iterateList(
+                new ByteArrayInputStream("[1,\n  two]".getBytes("UTF-8")), Integer.class);
+        assertThat(numbers.next()).isEqualTo(1);
+        try {
+            numbers.next();
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Expected a whole number at stream list element 1 at line 2 but was 'two'");
+        }
+        assertThat(numbers.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.flaminc.config;
+
+import com.github.flaminc.config.test.CountingBean;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachingReferenceHandlerTest {
+
+    private final Config config = ConfigFactory.parseString("{~ref: store.a}");
+
+    private final List<String> loads = Collections.synchronizedList(new ArrayList<String>());
+
+    private volatile long now;
+
+    /**
+     * Loads wait for this before returning
+     */
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    /**
+     * Thrown by the next load when set
+     */
+    private volatile Error failure;
+
+    private CachingReferenceHandler cache;
+
+    @Before
+    public void before() {
+        cache = newCache(2);
+    }
+
+    private CachingReferenceHandler newCache(int maximumSize) {
+        return new CachingReferenceHandler(new ReferenceHandler() {
+            @Override
+            public <E> E resolve(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                                 @Nullable Class<E> fieldType) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                final Error error = failure;
+                if (error != null) {
+                    failure = null;
+                    throw error;
+                }
+                loads.add(oriKey);
+                return (E) (keyStr + loads.size());
+            }
+
+            @Override
+            public void clean() {
+            }
+        }, maximumSize) {
+            @Override
+            long nanoTime() {
+                return now;
+            }
+        };
+    }
+
+    private String resolve(String key) {
+        return cache.resolve("store." + key, key, config, String.class);
+    }
+
+    @Test
+    public void testCachedThroughConfiguratorUtil() throws Exception {
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(
+                ConfigFactory.parseString("{value:{~ref:store.a},other:{~ref:store.a}}"));
+        util.addHandler("store", cache);
+
+        final CountingBean bean = util.loadClass(new CountingBean());
+        assertThat(bean.getValue()).isEqualTo("a1");
+        assertThat(bean.getOther()).isEqualTo("a1");
+        assertThat(loads).containsExactly("store.a");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+
+        util.clean();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEvictsLeastUsed() throws Exception {
+        resolve("a");
+        resolve("a");
+        resolve("a");
+        now = 1;
+        resolve("b");
+        now = 2;
+        resolve("c");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        // 'a' is used most so stays, 'b' is the older of the rest
+        assertThat(resolve("a")).isEqualTo("a1");
+        assertThat(resolve("c")).isEqualTo("c3");
+        assertThat(resolve("b")).isEqualTo("b4");
+    }
+
+    @Test
+    public void testExpireAndInvalidate() throws Exception {
+        cache.setExpireAfterWrite(10, TimeUnit.NANOSECONDS);
+        assertThat(resolve("a")).isEqualTo("a1");
+        now = 9;
+        assertThat(resolve("a")).isEqualTo("a1");
+        now = 10;
+        assertThat(resolve("a")).isEqualTo("a2");
+
+        cache.invalidate("store.a");
+        assertThat(resolve("a")).isEqualTo("a3");
+        assertThat(cache.getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        cache.setRefreshAfterWrite(5, TimeUnit.NANOSECONDS);
+        assertThat(resolve("a")).isEqualTo("a1");
+        now = 5;
+        release = new CountDownLatch(1);
+        // the old value is returned while the reload runs in the background
+        assertThat(resolve("a")).isEqualTo("a1");
+        release.countDown();
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!resolve("a").equals("a2")) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        assertThat(loads).containsExactly("store.a", "store.a");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSingleLoadForConcurrentCallers() throws Exception {
+        release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Callable<String> task = new Callable<String>() {
+                @Override
+                public String call() {
+                    return resolve("a");
+                }
+            };
+            final Future<String> first = executor.submit(task);
+            final Future<String> second = executor.submit(task);
+            // one caller loads, the other waits on it
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (cache.getHitCount() + cache.getMissCount() < 2) {
+                assertThat(System.currentTimeMillis()).isLessThan(deadline);
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("a1");
+            assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("a1");
+            assertThat(loads).containsExactly("store.a");
+            assertThat(cache.getMissCount()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedLoadNotCached() throws Exception {
+        failure = new AssertionError("load failed");
+        try {
+            resolve("a");
+            Assert.fail("expected error");
+        } catch (AssertionError e) {
+            assertThat(e).hasMessage("load failed");
+        }
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(resolve("a")).isEqualTo("a1");
+    }
+}
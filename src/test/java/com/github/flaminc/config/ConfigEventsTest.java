@@ -0,0 +1,68 @@
+package com.github.flaminc.config;
+
+import com.github.flaminc.config.test.SimpleBean;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigEventsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEventsRecorded() throws Exception {
+        Assume.assumeTrue(FlightRecorder.isAvailable());
+        final String cStr = "{a:{~ref:var.b},var:{b:{~type:" + SimpleBean.class.getName() + ",~constructor:[blah1]}}}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final File file = folder.newFile("events.jfr");
+        final Recording recording = new Recording();
+        try {
+            recording.enable("com.github.flaminc.config.Construct");
+            recording.enable("com.github.flaminc.config.ResolveReference");
+            recording.start();
+            ConfiguratorUtil.withConfig(config).getObject(config, "a", SimpleBean.class);
+            recording.stop();
+            recording.dump(file.toPath());
+        } finally {
+            recording.close();
+        }
+
+        final List<String> events = new ArrayList<String>();
+        final List<String> constructPaths = new ArrayList<String>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            final String name = event.getEventType().getName();
+            if (name.startsWith("com.github.flaminc.config.")) {
+                events.add(name.substring("com.github.flaminc.config.".length()) + " " +
+                        event.getClass("beanClass").getName() + " " + event.getString("handler"));
+                if (name.endsWith(".Construct")) {
+                    constructPaths.add(event.getString("path"));
+                }
+            }
+        }
+        assertThat(events).contains("ResolveReference " + SimpleBean.class.getName() + " var",
+                "Construct " + SimpleBean.class.getName() + " null");
+        // no path is known when constructing, the origin of the bean config stands in
+        assertThat(constructPaths).isNotEmpty().doesNotContainNull();
+        assertThat(constructPaths.get(0)).startsWith("String");
+    }
+
+    @Test
+    public void testNothingWhenNotRecording() throws Exception {
+        assertThat(ConfigEvents.begin(ConfigEvents.CONSTRUCT)).isNull();
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.flaminc.config;
+
+import com.github.flaminc.config.test.SimpleBean;
+import com.typesafe.config.ConfigFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigHolderTest {
+
+    private final ConfigHolder holder = new ConfigHolder(ConfigFactory.parseString("bean.value: a"),
+            Collections.<String, ReferenceHandler>emptyMap());
+
+    @Test
+    public void testUpdatePublishesNewSnapshot() throws Exception {
+        final ConfigHolder.Snapshot first = holder.register("bean", SimpleBean.class);
+        final List<String> updates = new ArrayList<String>();
+        holder.addListener(new ConfigHolder.Listener() {
+            @Override
+            public void updated(ConfigHolder.Snapshot previous, ConfigHolder.Snapshot current) {
+                updates.add(previous.getVersion() + "->" + current.getVersion());
+            }
+        });
+
+        holder.reloaded(ConfigFactory.parseString("bean.value: b"), Collections.singleton("bean.value"));
+
+        final ConfigHolder.Snapshot second = holder.get();
+        assertThat(second.getVersion()).isEqualTo(first.getVersion() + 1);
+        assertThat(second.getBean("bean", SimpleBean.class).getValue()).isEqualTo("b");
+        // the old snapshot and its beans are left as they were
+        assertThat(first.getBean("bean", SimpleBean.class).getValue()).isEqualTo("a");
+        assertThat(first.getConfig().getString("bean.value")).isEqualTo("a");
+        assertThat(updates).containsExactly("2->3");
+    }
+
+    @Test
+    public void testFailedUpdateKeepsSnapshot() throws Exception {
+        final ConfigHolder.Snapshot first = holder.register("bean", SimpleBean.class);
+        try {
+            holder.update(ConfigFactory.parseString("bean: {~ref: missing.x}"));
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Cannot find reference handler named: 'missing'");
+        }
+        assertThat(holder.get()).isSameAs(first);
+
+        try {
+            first.getBean("other", SimpleBean.class);
+            Assert.fail("expected exception");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("No bean registered at path: other");
+        }
+    }
+}
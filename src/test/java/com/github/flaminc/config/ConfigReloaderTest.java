@@ -0,0 +1,189 @@
+package com.github.flaminc.config;
+
+import com.github.flaminc.config.test.BeanWithMap;
+import com.github.flaminc.config.test.CountingBean;
+import com.github.flaminc.config.test.SimpleBean;
+import com.typesafe.config.Config;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigReloaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String previousEnvironment;
+
+    @Before
+    public void before() throws Exception {
+        previousEnvironment = System.getProperty(EnvironmentContext.SYSTEM_ENVIRONMENT);
+        System.setProperty(EnvironmentContext.SYSTEM_ENVIRONMENT, "qa");
+    }
+
+    @After
+    public void after() throws Exception {
+        if (previousEnvironment == null) {
+            System.clearProperty(EnvironmentContext.SYSTEM_ENVIRONMENT);
+        } else {
+            System.setProperty(EnvironmentContext.SYSTEM_ENVIRONMENT, previousEnvironment);
+        }
+    }
+
+    @Test
+    public void testReloadOnlyChangedBean() throws Exception {
+        final File file = folder.newFile("application.conf");
+        write(file, "all { first { value: a, other: b }, second { value: c } }, qa { second { other: d } }");
+
+        final ConfigReloader reloader = ConfigReloader.forFiles(Arrays.asList(file),
+                Collections.<String, ReferenceHandler>emptyMap());
+        final CountingBean first = reloader.bind("first", new CountingBean());
+        final CountingBean second = reloader.bind("second", new CountingBean());
+        assertThat(first.getInitCount()).isEqualTo(1);
+        assertThat(second.getOther()).isEqualTo("d");
+
+        write(file, "all { first { value: a, other: b }, second { value: changed } }, qa { second { other: d } }");
+        final Set<String> changed = reloader.reload();
+
+        assertThat(changed).containsOnly("second.value");
+        assertThat(first.getInitCount()).isEqualTo(1);
+        assertThat(second.getInitCount()).isEqualTo(2);
+        assertThat(second.getValue()).isEqualTo("changed");
+        assertThat(second.getOther()).isEqualTo("d");
+        assertThat(reloader.getConfig().getString("second.value")).isEqualTo("changed");
+    }
+
+    @Test
+    public void testReloadRemovedField() throws Exception {
+        final File file = folder.newFile("application.conf");
+        write(file, "all { bean { value: a, other: b } }, qa {}");
+
+        final ConfigReloader reloader = ConfigReloader.forFiles(Arrays.asList(file),
+                Collections.<String, ReferenceHandler>emptyMap());
+        final CountingBean bean = reloader.bind("bean", new CountingBean());
+
+        write(file, "all { bean { value: a } }, qa {}");
+        reloader.reload();
+
+        assertThat(bean.getValue()).isEqualTo("a");
+        assertThat(bean.getOther()).isNull();
+        assertThat(reloader.reload()).isEmpty();
+        assertThat(bean.getInitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailedReloadChangesNothing() throws Exception {
+        final File file = folder.newFile("application.conf");
+        write(file, "all { first { value: a }, second { value: b } }, qa {}");
+
+        final ConfigReloader reloader = ConfigReloader.forFiles(Arrays.asList(file),
+                Collections.<String, ReferenceHandler>emptyMap());
+        final CountingBean first = reloader.bind("first", new CountingBean());
+        final CountingBean second = reloader.bind("second", new CountingBean());
+
+        write(file, "all { first { value: changed }, second { value: {~ref: missing.x} } }, qa {}");
+        try {
+            reloader.reload();
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Cannot find reference handler named: 'missing'");
+        }
+
+        assertThat(first.getValue()).isEqualTo("a");
+        assertThat(first.getInitCount()).isEqualTo(1);
+        assertThat(second.getValue()).isEqualTo("b");
+        assertThat(reloader.getConfig().getString("first.value")).isEqualTo("a");
+    }
+
+    @Test
+    public void testReloadReferencedSingleton() throws Exception {
+        final File file = folder.newFile("application.conf");
+        write(file, "all { var { name: a, alias: {~ref: var.name} }, bean { value: {~ref: var.alias}, other: b } }, " +
+                "qa {}");
+
+        final ConfigReloader reloader = ConfigReloader.forFiles(Arrays.asList(file),
+                Collections.<String, ReferenceHandler>emptyMap());
+        final CountingBean bean = reloader.bind("bean", new CountingBean());
+        assertThat(bean.getValue()).isEqualTo("a");
+
+        write(file, "all { var { name: changed, alias: {~ref: var.name} }, bean { value: {~ref: var.alias}, " +
+                "other: b } }, qa {}");
+        assertThat(reloader.reload()).containsOnly("var.name");
+
+        assertThat(bean.getValue()).isEqualTo("changed");
+        assertThat(bean.getOther()).isEqualTo("b");
+        assertThat(bean.getInitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testReloadKeepsUnchangedSingleton() throws Exception {
+        final File file = folder.newFile("application.conf");
+        write(file, "all { var { shared: {x: {~type: com.github.flaminc.config.test.SimpleBean, value: y}}, " +
+                "other: {z: {~type: com.github.flaminc.config.test.SimpleBean, value: w}} }, " +
+                "a { map: {~ref: var.other} }, b { map: {~ref: var.shared} } }, qa {}");
+
+        final ConfigReloader reloader = ConfigReloader.forFiles(Arrays.asList(file),
+                Collections.<String, ReferenceHandler>emptyMap());
+        final BeanWithMap a = reloader.bind("a", new BeanWithMap());
+        final BeanWithMap b = reloader.bind("b", new BeanWithMap());
+        final Map<String, SimpleBean> shared = b.getMap();
+
+        write(file, "all { var { shared: {x: {~type: com.github.flaminc.config.test.SimpleBean, value: y}}, " +
+                "other: {z: {~type: com.github.flaminc.config.test.SimpleBean, value: w}} }, " +
+                "a { map: {~ref: var.shared} }, b { map: {~ref: var.shared} } }, qa {}");
+        assertThat(reloader.reload()).containsOnly("a.map.\"~ref\"");
+
+        assertThat(b.getMap()).isSameAs(shared);
+        assertThat(a.getMap()).isSameAs(shared);
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        final File file = folder.newFile("application.conf");
+        write(file, "all { bean { value: a } }, qa {}");
+
+        final ConfigReloader reloader = ConfigReloader.watch(Arrays.asList(file),
+                Collections.<String, ReferenceHandler>emptyMap(), 50);
+        try {
+            final CountingBean bean = reloader.bind("bean", new CountingBean());
+            final CountDownLatch reloaded = new CountDownLatch(1);
+            reloader.addListener(new ConfigReloader.Listener() {
+                @Override
+                public void reloaded(Config config, Set<String> changedPaths) {
+                    reloaded.countDown();
+                }
+            });
+
+            write(file, "all { bean { value: b } }, qa {}");
+            assertThat(reloaded.await(30, TimeUnit.SECONDS)).isTrue();
+            assertThat(bean.getValue()).isEqualTo("b");
+        } finally {
+            reloader.close();
+        }
+    }
+
+    private static void write(File file, String content) throws Exception {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigSnapshotCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String previousEnvironment;
+    private ClassLoader previousLoader;
+    private File classes;
+
+    @Before
+    public void before() throws Exception {
+        previousEnvironment = System.getProperty(EnvironmentContext.SYSTEM_ENVIRONMENT);
+        System.setProperty(EnvironmentContext.SYSTEM_ENVIRONMENT, "qa");
+        previousLoader = Thread.currentThread().getContextClassLoader();
+        classes = folder.newFolder("classes");
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{classes.toURI().toURL()},
+                previousLoader));
+    }
+
+    @After
+    public void after() throws Exception {
+        ConfigFactory.invalidateCaches();
+        Thread.currentThread().setContextClassLoader(previousLoader);
+        if (previousEnvironment == null) {
+            System.clearProperty(EnvironmentContext.SYSTEM_ENVIRONMENT);
+        } else {
+            System.setProperty(EnvironmentContext.SYSTEM_ENVIRONMENT, previousEnvironment);
+        }
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        write("all { var { str: blah, int: 1, long: 5000000000, double: 1.5, bool: true, n: null, " +
+                "list: [1, [a], {b: 2}], ref: ${var.str} } }, qa { var { str: qa } }");
+        final ConfigSnapshotCache cache = new ConfigSnapshotCache(folder.newFolder("snapshots"));
+
+        final Config loaded = cache.resolveEnvConfig();
+        assertThat(cache.getSnapshots()).hasSize(1);
+
+        final Config snapshot = cache.resolveEnvConfig();
+        assertThat(snapshot.origin().description()).startsWith("snapshot");
+        assertThat(snapshot.root()).isEqualTo(loaded.root());
+        assertThat(snapshot.getString("var.ref")).isEqualTo("qa");
+        assertThat(snapshot.getLong("var.long")).isEqualTo(5000000000L);
+        assertThat(snapshot.hasPath("var.n")).isFalse();
+    }
+
+    @Test
+    public void testSnapshotInvalidatedOnChange() throws Exception {
+        write("all { var { str: blah } }, qa { }");
+        final ConfigSnapshotCache cache = new ConfigSnapshotCache(folder.newFolder("snapshots"));
+        assertThat(cache.resolveEnvConfig().getString("var.str")).isEqualTo("blah");
+        final List<File> before = cache.getSnapshots();
+
+        write("all { var { str: changed } }, qa { }");
+        // config library keeps loaded config per class loader, as if restarted
+        ConfigFactory.invalidateCaches();
+        final Config reloaded = cache.resolveEnvConfig();
+        assertThat(reloaded.getString("var.str")).isEqualTo("changed");
+        assertThat(reloaded.origin().description().startsWith("snapshot")).isFalse();
+        assertThat(cache.getSnapshots()).hasSize(1).isEqualTo(before);
+
+        final Config snapshot = cache.resolveEnvConfig();
+        assertThat(snapshot.origin().description()).startsWith("snapshot");
+        assertThat(snapshot.getString("var.str")).isEqualTo("changed");
+    }
+
+    @Test
+    public void testSnapshotInvalidatedOnIncludeChange() throws Exception {
+        write("other.conf", "all { var { str: blah } }");
+        write("include \"other.conf\"\nall { var { int: 1 } }, qa { }");
+        final ConfigSnapshotCache cache = new ConfigSnapshotCache(folder.newFolder("snapshots"));
+        assertThat(cache.resolveEnvConfig().getString("var.str")).isEqualTo("blah");
+        assertThat(cache.resolveEnvConfig().origin().description()).startsWith("snapshot");
+
+        write("other.conf", "all { var { str: changed } }");
+        ConfigFactory.invalidateCaches();
+        assertThat(cache.resolveEnvConfig().getString("var.str")).isEqualTo("changed");
+    }
+
+    @Test
+    public void testSnapshotKeyedByReferencedProperties() throws Exception {
+        System.setProperty("snapshot.test.used", "a");
+        System.setProperty("snapshot.test.unused", "a");
+        // config library keeps system properties from the first load
+        ConfigFactory.invalidateCaches();
+        try {
+            write("all { var { str: ${snapshot.test.used} } }, qa { }");
+            final ConfigSnapshotCache cache = new ConfigSnapshotCache(folder.newFolder("snapshots"));
+            assertThat(cache.resolveEnvConfig().getString("var.str")).isEqualTo("a");
+
+            System.setProperty("snapshot.test.unused", "b");
+            ConfigFactory.invalidateCaches();
+            assertThat(cache.resolveEnvConfig().origin().description()).startsWith("snapshot");
+
+            System.setProperty("snapshot.test.used", "b");
+            ConfigFactory.invalidateCaches();
+            final Config config = cache.resolveEnvConfig();
+            assertThat(config.origin().description().startsWith("snapshot")).isFalse();
+            assertThat(config.getString("var.str")).isEqualTo("b");
+        } finally {
+            System.clearProperty("snapshot.test.used");
+            System.clearProperty("snapshot.test.unused");
+        }
+    }
+
+    @Test
+    public void testSnapshotKeepsNumberText() throws Exception {
+        write("all { var { version: 1.10, port: 08080 } }, qa { }");
+        final ConfigSnapshotCache cache = new ConfigSnapshotCache(folder.newFolder("snapshots"));
+        cache.resolveEnvConfig();
+
+        final Config snapshot = cache.resolveEnvConfig();
+        assertThat(snapshot.origin().description()).startsWith("snapshot");
+        assertThat(snapshot.getString("var.version")).isEqualTo("1.10");
+        assertThat(snapshot.getString("var.port")).isEqualTo("08080");
+        assertThat(snapshot.getInt("var.port")).isEqualTo(8080);
+        assertThat(snapshot.getDouble("var.version")).isEqualTo(1.1);
+    }
+
+    @Test
+    public void testCorruptSnapshotIgnored() throws Exception {
+        write("all { var { str: blah } }, qa { }");
+        final ConfigSnapshotCache cache = new ConfigSnapshotCache(folder.newFolder("snapshots"));
+        cache.resolveEnvConfig();
+        final File snapshot = cache.getSnapshots().get(0);
+        final RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+
+        final Config config = cache.resolveEnvConfig();
+        assertThat(config.getString("var.str")).isEqualTo("blah");
+        assertThat(config.origin().description().startsWith("snapshot")).isFalse();
+    }
+
+    private void write(String content) throws Exception {
+        write("application.conf", content);
+    }
+
+    private void write(String name, String content) throws Exception {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(new File(classes, name)), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -1,18 +1,52 @@
 package com.github.flaminc.config;
 
+import com.github.flaminc.config.collect.IntIntMap;
+import com.github.flaminc.config.collect.LongObjectMap;
 import com.github.flaminc.config.test.BeanWithMap;
+import com.github.flaminc.config.test.CountingBean;
 import com.github.flaminc.config.test.EnumBean;
 import com.github.flaminc.config.test.EnumInstance;
+import com.github.flaminc.config.test.FinalBean;
+import com.github.flaminc.config.test.ImmutableBean;
+import com.github.flaminc.config.test.ListBean;
+import com.github.flaminc.config.test.NamedParamBean;
+import com.github.flaminc.config.test.OverloadedBean;
+import com.github.flaminc.config.test.PrimitiveMapBean;
 import com.github.flaminc.config.test.SimpleBean;
 import com.github.flaminc.config.test.TestBean;
 import com.github.flaminc.config.test.inheritance.Child;
+import com.github.flaminc.config.test.inheritance.ChildBean;
 import com.github.flaminc.config.test.inheritance.ParentBean;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.impl.ConfigBridge;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Matchers.eq;
@@ -316,4 +350,715 @@ public class ConfigUtilTest {
         final Child child = new Child();
         assertThat(enumBean.getObj()).hasSameClassAs(child);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testInheritedResourceFields() throws Exception {
+        final String cStr = "" +
+                "name:kid," +
+                "obj:{~type:com.github.flaminc.config.test.inheritance.Child}";
+        final Config config = ConfigFactory.parseString(cStr).resolve();
+
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        final ChildBean first = util.loadClass(new ChildBean());
+        final ChildBean second = util.loadClass(new ChildBean());
+
+        assertThat(first.getName()).isEqualTo("kid");
+        assertThat(first.getObj()).isInstanceOf(Child.class);
+        assertThat(second.getName()).isEqualTo("kid");
+        assertThat(second.getObj()).isInstanceOf(Child.class);
+    }
+
+    @Test
+    public void testFinalFieldFallsBackToReflection() throws Exception {
+        final String cStr = "{value:blah}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final FinalBean bean = ConfiguratorUtil.withConfig(config).loadClass(new FinalBean());
+        assertThat(bean.getValue()).isEqualTo("blah");
+    }
+
+    @Test
+    public void testConstructWideningPrimitive() throws Exception {
+        // 01 is loaded as an Integer, the only numeric constructor of Long takes a long
+        final String cStr = "{~constructor:[01],~type:java.lang.Long}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final ConfiguratorUtil util = ConfiguratorUtil.noConfig();
+        final Long first = util.construct(config, null);
+        final Long second = util.construct(config, null);
+        assertThat(first).isEqualTo(1L);
+        assertThat(second).isEqualTo(1L);
+        assertThat(ConstructorResolver.resolve(Long.class, new Class<?>[]{Integer.class}))
+                .isSameAs(ConstructorResolver.resolve(Long.class, new Class<?>[]{Integer.class}));
+        assertThat(ConstructorResolver.resolve(Long.class, new Class<?>[]{Integer.class}).getConstructor()
+                .getParameterTypes()).containsExactly(long.class);
+    }
+
+    @Test
+    public void testConstructorTieGoesToMostSpecific() throws Exception {
+        final String type = OverloadedBean.class.getName();
+        final Config config = ConfigFactory.parseString("label: {~constructor: [{~type: \"" + type + "$Label\", " +
+                "~constructor: []}]}, tag: {~constructor: [{~type: \"" + type + "$NamedTag\", ~constructor: []}]}");
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        // Labelled and Named score the same, Labelled is the more specific
+        for (int i = 0; i < 3; i++) {
+            assertThat(util.getObject(config, "label", OverloadedBean.class).getCalled()).isEqualTo("Labelled");
+        }
+        try {
+            util.getObject(config, "tag", OverloadedBean.class);
+            Assert.fail("expected exception");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).startsWith("Ambiguous constructors of types: [" +
+                    OverloadedBean.NamedTag.class + "] for " + OverloadedBean.class);
+        }
+    }
+
+    @Test
+    public void testTypeAlias() throws Exception {
+        final String cStr = "{~constructor:[\"https://www.google.com\"],~type:url}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final ConfiguratorUtil util = ConfiguratorUtil.noConfig();
+        util.addTypeAlias("url", URL.class);
+        final Object val = util.construct(config, null);
+        // URL.equals resolves the host
+        assertThat(val).isInstanceOf(URL.class);
+        assertThat(((URL) val).toExternalForm()).isEqualTo("https://www.google.com");
+    }
+
+    @Test
+    public void testTypeNotFoundCachedPerLoader() throws Exception {
+        final List<String> asked = new ArrayList<String>();
+        final ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                asked.add(name);
+                return super.loadClass(name, resolve);
+            }
+        };
+        final ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            final TypeResolver resolver = new TypeResolver();
+            for (int i = 0; i < 3; i++) {
+                try {
+                    resolver.resolve("com.github.flaminc.config.test.Missing");
+                    Assert.fail("expected exception");
+                } catch (ClassNotFoundException e) {
+                    assertThat(e).hasMessage("com.github.flaminc.config.test.Missing");
+                }
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+        assertThat(asked).containsExactly("com.github.flaminc.config.test.Missing");
+    }
+
+    @Test
+    public void testCircularReference() throws Exception {
+        final String cStr = "var.a.~ref=var.b,var.b.~ref=var.a,ptr.~ref=var.a";
+        final Config config = ConfigFactory.parseString(cStr).resolve();
+
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        try {
+            util.getObject(config, "ptr", String.class);
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Circular reference: var.a -> var.b -> var.a");
+        }
+    }
+
+    @Test
+    public void testReferenceConcurrentSingleton() throws Exception {
+        final String cStr = "" +
+                "var.bean:{~type:com.github.flaminc.config.test.SimpleBean,value:blah}," +
+                "ptr.~ref=var.bean";
+        final Config config = ConfigFactory.parseString(cStr).resolve();
+
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<SimpleBean>> results = new ArrayList<Future<SimpleBean>>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(new Callable<SimpleBean>() {
+                    @Override
+                    public SimpleBean call() throws Exception {
+                        return util.getObject(config, "ptr", SimpleBean.class);
+                    }
+                }));
+            }
+            final SimpleBean first = results.get(0).get();
+            for (Future<SimpleBean> result : results) {
+                assertThat(result.get()).isSameAs(first);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConstructParallel() throws Exception {
+        final String cStr = "" +
+                "var.simple:{~type:com.github.flaminc.config.test.SimpleBean,value:blah}," +
+                "var.holder:{~type:com.github.flaminc.config.test.BeanWithMap,map:{first:{~ref:var.simple}}}," +
+                "var.other:{~type:com.github.flaminc.config.test.SimpleBean,value:other}";
+        final Config config = ConfigFactory.parseString(cStr).resolve();
+
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Map<String, Object> beans = util.constructParallel("var", executor);
+            assertThat(beans.keySet()).containsOnly("var.simple", "var.holder", "var.other");
+            final BeanWithMap holder = (BeanWithMap) beans.get("var.holder");
+            assertThat(holder.getMap().get("first")).isSameAs(beans.get("var.simple"));
+            assertThat(util.getObject(config, "var.simple", SimpleBean.class)).isEqualTo(new SimpleBean("blah"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConstructParallelCycle() throws Exception {
+        final String cStr = "" +
+                "var.a:{~type:com.github.flaminc.config.test.BeanWithMap,map:{b:{~ref:var.b}}}," +
+                "var.b:{~type:com.github.flaminc.config.test.BeanWithMap,map:{a:{~ref:var.a}}}";
+        final Config config = ConfigFactory.parseString(cStr).resolve();
+
+        try {
+            ConfiguratorUtil.withConfig(config).constructParallel("var");
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Circular reference: var.a -> var.b -> var.a");
+        }
+    }
+
+    @Test
+    public void testLazyReference() throws Exception {
+        final String cStr = "{map:{~ref=blah.ptr,~lazy:true}}";
+        final Config config = ConfigFactory.parseString(cStr).resolve();
+
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        final ReferenceHandler handler = mock(ReferenceHandler.class);
+        final Map<String, SimpleBean> target = new HashMap<String, SimpleBean>();
+        target.put("blah", new SimpleBean("blah1"));
+        when(handler.resolve(eq("blah.ptr"), eq("ptr"), same(config.getConfig("map")), eq(Map.class)))
+                .thenReturn(target);
+        util.addHandler("blah", handler);
+
+        final BeanWithMap bean = util.loadClass(new BeanWithMap());
+        // Object methods do not resolve the target
+        assertThat(bean.getMap().toString()).isEqualTo("lazy reference to " + Map.class.getName());
+        assertThat(bean.getMap().hashCode()).isEqualTo(System.identityHashCode(bean.getMap()));
+        assertThat(bean.getMap().equals(bean.getMap())).isTrue();
+        assertThat(bean.getMap().equals(target)).isFalse();
+        verify(handler, times(0)).resolve(eq("blah.ptr"), eq("ptr"), same(config.getConfig("map")), eq(Map.class));
+
+        assertThat(bean.getMap().get("blah")).isEqualTo(new SimpleBean("blah1"));
+        assertThat(bean.getMap().size()).isEqualTo(1);
+        assertThat(bean.getMap().get("missing")).isNull();
+        verify(handler, times(1)).resolve(eq("blah.ptr"), eq("ptr"), same(config.getConfig("map")), eq(Map.class));
+        // resolved, equals and hashCode still answer for the proxy, toString goes to the target
+        assertThat(bean.getMap().equals(target)).isFalse();
+        assertThat(bean.getMap().equals(bean.getMap())).isTrue();
+        assertThat(bean.getMap().hashCode()).isEqualTo(System.identityHashCode(bean.getMap()));
+        assertThat(bean.getMap().toString()).isEqualTo(target.toString());
+        try {
+            bean.getMap().put("other", null);
+            bean.getMap().entrySet().iterator().remove();
+            Assert.fail("expected exception");
+        } catch (IllegalStateException e) {
+            // thrown by the target as is
+        }
+    }
+
+    @Test
+    public void testPrimitiveMaps() throws Exception {
+        final String cStr = "{limits:{1:10,2:20,0:5},routes:[10,{~type:" + SimpleBean.class.getName() +
+                ",~constructor:[blah1]},5000000000,{~type:" + SimpleBean.class.getName() + ",~constructor:[blah2]}]}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final PrimitiveMapBean bean = ConfiguratorUtil.withConfig(config).loadClass(new PrimitiveMapBean());
+        assertThat(bean.getLimits().size()).isEqualTo(3);
+        assertThat(bean.getLimits().get(1)).isEqualTo(10);
+        assertThat(bean.getLimits().get(2)).isEqualTo(20);
+        assertThat(bean.getLimits().get(0)).isEqualTo(5);
+        assertThat(bean.getLimits().get(3, -1)).isEqualTo(-1);
+        assertThat(bean.getRoutes().get(10L)).isEqualTo(new SimpleBean("blah1"));
+        assertThat(bean.getRoutes().get(5000000000L)).isEqualTo(new SimpleBean("blah2"));
+    }
+
+    @Test
+    public void testMapKeysFromGenericType() throws Exception {
+        final Config config = ConfigFactory.parseString("{counts:{1:10,\"2\":\"20\"},names:[5000000000,a,7,2]}");
+
+        final PrimitiveMapBean bean = ConfiguratorUtil.withConfig(config).loadClass(new PrimitiveMapBean());
+        // only fields declared as a primitive map get one
+        assertThat(bean.getCounts()).isInstanceOf(HashMap.class);
+        assertThat(bean.getCounts().get(1)).isEqualTo(10);
+        assertThat(bean.getCounts().get(2)).isEqualTo(20);
+        assertThat(bean.getCounts().get("2")).isNull();
+        assertThat(bean.getNames()).isInstanceOf(HashMap.class);
+        assertThat(bean.getNames().get(5000000000L)).isEqualTo("a");
+        assertThat(bean.getNames().get(7L)).isEqualTo("2");
+        bean.getCounts().put(3, null);
+        assertThat(bean.getCounts()).containsKey(3);
+    }
+
+    @Test
+    public void testPrimitiveMapGrowAndRemove() throws Exception {
+        final IntIntMap map = new IntIntMap(2);
+        for (int i = -1000; i < 1000; i++) {
+            map.put(i * 7, i);
+        }
+        assertThat(map.size()).isEqualTo(2000);
+        for (int i = -1000; i < 1000; i += 2) {
+            assertThat(map.remove(i * 7)).isTrue();
+        }
+        assertThat(map.size()).isEqualTo(1000);
+        for (int i = -1000; i < 1000; i++) {
+            assertThat(map.containsKey(i * 7)).isEqualTo(i % 2 != 0);
+            if (i % 2 != 0) {
+                assertThat(map.get(i * 7)).isEqualTo(i);
+            }
+        }
+    }
+
+    @Test
+    public void testPrimitiveMapRejectsNullValue() throws Exception {
+        final IntIntMap map = new IntIntMap();
+        try {
+            map.put((Integer) 1, null);
+            Assert.fail("expected exception");
+        } catch (NullPointerException e) {
+            assertThat(e).hasMessage("Null value for key 1");
+        }
+        assertThat(map.size()).isEqualTo(0);
+        assertThat(map.containsKey(1)).isFalse();
+
+        final LongObjectMap<String> objects = new LongObjectMap<String>();
+        objects.put((Long) 1L, null);
+        assertThat(objects.containsKey(1L)).isTrue();
+    }
+
+    @Test
+    public void testPrimitiveMapIteratorRemove() throws Exception {
+        final IntIntMap map = new IntIntMap(2);
+        final Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        for (int i = -2000; i < 2000; i++) {
+            // clustered keys so removals shift later keys back, wrapping around the table
+            map.put(i * 64, i);
+            expected.put(i * 64, i);
+        }
+        map.put(0, 99);
+        expected.put(0, 99);
+        final List<Integer> seen = new ArrayList<Integer>();
+        for (Iterator<Map.Entry<Integer, Integer>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<Integer, Integer> entry = it.next();
+            seen.add(entry.getKey());
+            assertThat(entry.getValue()).isEqualTo(expected.get(entry.getKey()));
+            if (entry.getKey() % 3 == 0) {
+                it.remove();
+                expected.remove(entry.getKey());
+            }
+        }
+        // every key visited once, even those moved by a removal
+        assertThat(seen).hasSize(4000).doesNotHaveDuplicates();
+        assertThat(map).isEqualTo(expected);
+
+        map.keySet().remove(64);
+        map.values().removeAll(Collections.singleton(-1));
+        expected.remove(64);
+        expected.remove(-64);
+        assertThat(map).isEqualTo(expected);
+        assertThat(map.size()).isEqualTo(expected.size());
+    }
+
+    @Test
+    public void testLoadClassOfLists() throws Exception {
+        final String cStr = "{ints:[1,2,\"3\"],longs:[5000000000],doubles:[1.5,2],flags:[true,false]," +
+                "beans:[{~constructor:[blah1]},{~constructor:[blah2]}],list:[a,1,true],set:[a,b,a]}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final ListBean bean = ConfiguratorUtil.withConfig(config).loadClass(new ListBean());
+        assertThat(bean.getInts()).containsExactly(1, 2, 3);
+        assertThat(bean.getLongs()).containsExactly(5000000000L);
+        assertThat(bean.getDoubles()).containsExactly(1.5, 2.0);
+        assertThat(bean.getFlags()).containsExactly(true, false);
+        assertThat(bean.getBeans()).containsExactly(new SimpleBean("blah1"), new SimpleBean("blah2"));
+        assertThat(bean.getList()).containsExactly("a", 1, true);
+        assertThat(bean.getSet()).containsExactly("a", "b");
+    }
+
+    @Test
+    public void testLoadClassOfListsWithElementType() throws Exception {
+        final String cStr = "{set:[1,2],ids:[1,\"2\",1],beanList:[{~constructor:[blah1]},{~constructor:[blah2]}]}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final ListBean bean = ConfiguratorUtil.withConfig(config).loadClass(new ListBean());
+        assertThat(bean.getSet()).containsExactly("1", "2");
+        assertThat(bean.getIds()).containsExactly(1, 2);
+        assertThat(bean.getBeanList()).containsExactly(new SimpleBean("blah1"), new SimpleBean("blah2"));
+    }
+
+    @Test
+    public void testLoadClassOfListOutOfRange() throws Exception {
+        final Config config = ConfigFactory.parseString("{ints:[1,5000000000]}");
+
+        try {
+            ConfiguratorUtil.withConfig(config).loadClass(new ListBean());
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Value 5000000000 at list position 1 is out of range for an int");
+        }
+    }
+
+    @Test
+    public void testGetObjectLookups() throws Exception {
+        final String cStr = "{a:{b:{c:1}},\"d.e\":blah,n:null}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        assertThat(util.getObject(config, "a.b.c", Integer.class)).isEqualTo(1);
+        assertThat(util.getObject(config, "\"d.e\"", String.class)).isEqualTo("blah");
+        assertThat(util.getObject(config, "a.x.c", String.class)).isNull();
+        // config null is the same as missing
+        assertThat(util.getObject(config, "n", String.class)).isNull();
+    }
+
+    @Test
+    public void testNumberKeepsTextForString() throws Exception {
+        final Config config = ConfigFactory.parseString("value: 1.10, other: 08080");
+        final CountingBean bean = ConfiguratorUtil.withConfig(config).loadClass(new CountingBean());
+        // same as Config.getString
+        assertThat(bean.getValue()).isEqualTo(config.getString("value")).isEqualTo("1.10");
+        assertThat(bean.getOther()).isEqualTo(config.getString("other")).isEqualTo("08080");
+    }
+
+    @Test
+    public void testDecimalTruncatedForWholeNumber() throws Exception {
+        final Config config = ConfigFactory.parseString("primInteger: 1.5, objInteger: \"-2.7\"");
+        final TestBean bean = ConfiguratorUtil.withConfig(config).loadClass(new TestBean());
+        // same as Config.getInt
+        assertThat(bean.getPrimInteger()).isEqualTo(config.getInt("primInteger")).isEqualTo(1);
+        assertThat(bean.getObjInteger()).isEqualTo(config.getInt("objInteger")).isEqualTo(-2);
+    }
+
+    @Test
+    public void testReferenceKeyParsedOnce() throws Exception {
+        final Pair<String, String> split = ConfigBridge.pathToFirstRest("blah.\"a.b\".c");
+        assertThat(split.getLeft()).isEqualTo("blah");
+        assertThat(split.getRight()).isEqualTo("\"a.b\".c");
+        assertThat(ConfigBridge.pathToFirstRest("blah.\"a.b\".c")).isSameAs(split);
+    }
+
+    @Test
+    public void testReferenceKeyCacheKeepsUsedKeys() throws Exception {
+        final Pair<String, String> hot = ConfigBridge.pathToFirstRest("hot.key");
+        for (int i = 0; i < 3 * 4096; i++) {
+            ConfigBridge.pathToFirstRest("cold.k" + i);
+            assertThat(ConfigBridge.pathToFirstRest("hot.key")).isSameAs(hot);
+        }
+        // keys seen after the cache filled are still cached, taking the place of keys not used since
+        final Pair<String, String> late = ConfigBridge.pathToFirstRest("cold.late");
+        assertThat(ConfigBridge.pathToFirstRest("cold.late")).isSameAs(late);
+    }
+
+    @Test
+    public void testBindingStats() throws Exception {
+        final String cStr = "{map:{a:{~ref:var.a},b:{~ref:blah.ptr}},var:{a:{~type:" + SimpleBean.class.getName() +
+                ",~constructor:[blah1]}}}";
+        final Config config = ConfigFactory.parseString(cStr);
+
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        final ReferenceHandler handler = mock(ReferenceHandler.class);
+        when(handler.resolve(eq("blah.ptr"), eq("ptr"), same(config.getConfig("map.b")), eq(SimpleBean.class)))
+                .thenReturn(new SimpleBean("blah2"));
+        util.addHandler("blah", handler);
+        final BindingStats stats = new BindingStats();
+        stats.setPathLimit(100);
+        util.setMetrics(stats);
+
+        util.loadClass(new BeanWithMap());
+
+        final List<String> operations = new ArrayList<String>();
+        for (BindingStats.Timing timing : stats.getOperations()) {
+            operations.add(timing.getName());
+        }
+        assertThat(operations).contains("LOAD_CLASS " + BeanWithMap.class.getName(), "WIRE_FIELD java.util.Map",
+                "CONSTRUCT java.util.HashMap", "GET_OBJECT " + SimpleBean.class.getName());
+        final List<String> paths = new ArrayList<String>();
+        for (BindingStats.Timing timing : stats.getPaths()) {
+            paths.add(timing.getName());
+        }
+        assertThat(paths).contains("WIRE_FIELD java.util.Map map",
+                "GET_OBJECT " + SimpleBean.class.getName() + " var.a");
+        final List<String> references = new ArrayList<String>();
+        for (BindingStats.Timing timing : stats.getReferences()) {
+            references.add(timing.getName());
+            assertThat(timing.getCount()).isEqualTo(1);
+            assertThat(timing.getErrors()).isEqualTo(0);
+        }
+        assertThat(references).containsOnly("var", "blah");
+        assertThat(stats.getRegistrySize()).isEqualTo(1);
+
+        // paths past the limit are left out, the type totals still count them
+        stats.reset();
+        stats.setPathLimit(1);
+        stats.operation(BindingMetrics.Operation.GET_OBJECT, String.class, "a", 5, false);
+        stats.operation(BindingMetrics.Operation.GET_OBJECT, String.class, "b", 5, false);
+        assertThat(stats.getPaths()).hasSize(1);
+        assertThat(stats.getOperations()).hasSize(1);
+        assertThat(stats.getOperations().get(0).getCount()).isEqualTo(2);
+
+        final ObjectName name = stats.register("testBindingStats");
+        try {
+            assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "RegistrySize")).isEqualTo(1);
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testAsyncReferencesResolvedTogether() throws Exception {
+        final Config config = ConfigFactory.parseString("{value:{~ref:slow.a},other:{~ref:slow.b}}");
+        final CountDownLatch started = new CountDownLatch(2);
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        util.addHandler("slow", new AbstractAsyncReferenceHandler() {
+            @Override
+            public <E> CompletableFuture<E> resolveAsync(String oriKey, String keyStr, Config config,
+                                                         Class<E> fieldType) {
+                started.countDown();
+                try {
+                    // only returns in time if both lookups are running at once
+                    if (!started.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("lookups ran one at a time");
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return CompletableFuture.completedFuture(fieldType.cast(keyStr));
+            }
+        });
+
+        final CountingBean bean = util.loadClass(new CountingBean());
+        assertThat(bean.getValue()).isEqualTo("a");
+        assertThat(bean.getOther()).isEqualTo("b");
+    }
+
+    @Test
+    public void testAsyncReferenceTimeout() throws Exception {
+        final Config config = ConfigFactory.parseString("{value:{~ref:stuck.a}}");
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        final List<CompletableFuture<?>> lookups = new CopyOnWriteArrayList<CompletableFuture<?>>();
+        util.addHandler("stuck", new AbstractAsyncReferenceHandler() {
+            @Override
+            public <E> CompletableFuture<E> resolveAsync(String oriKey, String keyStr, Config config,
+                                                         Class<E> fieldType) {
+                final CompletableFuture<E> lookup = new CompletableFuture<E>();
+                lookups.add(lookup);
+                return lookup;
+            }
+        });
+        util.setHandlerTimeout("stuck", 50, TimeUnit.MILLISECONDS);
+
+        try {
+            util.loadClass(new CountingBean());
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Reference handler 'stuck' did not resolve 'stuck.a' within 50 ms");
+        }
+        // the lookup the handler started was cancelled along with the wait
+        assertThat(lookups).hasSize(1);
+        assertThat(lookups.get(0).isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testBatchReferencesResolvedInOneCall() throws Exception {
+        final Config config = ConfigFactory.parseString("{value:{~ref:store.a},other:{~ref:store.b}}");
+        final List<String> batches = new ArrayList<String>();
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        util.addHandler("store", new BatchReferenceHandler() {
+            @NotNull
+            @Override
+            public Map<String, ?> resolveAll(@NotNull Collection<Request> requests) {
+                batches.add(requests.toString());
+                final Map<String, Object> resolved = new HashMap<String, Object>();
+                for (Request request : requests) {
+                    resolved.put(request.getOriKey(), request.getKeyStr().toUpperCase());
+                }
+                return resolved;
+            }
+
+            @Override
+            public <E> E resolve(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                                 @Nullable Class<E> fieldType) {
+                throw new IllegalStateException("resolved one at a time: " + oriKey);
+            }
+
+            @Override
+            public void clean() {
+            }
+        });
+
+        final CountingBean bean = util.loadClass(new CountingBean());
+        assertThat(bean.getValue()).isEqualTo("A");
+        assertThat(bean.getOther()).isEqualTo("B");
+        assertThat(batches).containsExactly("[store.a, store.b]");
+    }
+
+    @Test
+    public void testBatchReferencesByType() throws Exception {
+        final Config config = ConfigFactory.parseString("{primInteger:{~ref:store.n},objInteger:{~ref:store.n}," +
+                "objBoolean:{~ref:store.flag}}");
+        final List<String> batches = new ArrayList<String>();
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        util.addHandler("store", new BatchReferenceHandler() {
+            @NotNull
+            @Override
+            public Map<String, ?> resolveAll(@NotNull Collection<Request> requests) {
+                batches.add(requests.toString());
+                final Map<String, Object> resolved = new HashMap<String, Object>();
+                for (Request request : requests) {
+                    resolved.put(request.getOriKey(), request.getFieldType() == int.class ? 1 :
+                            request.getFieldType() == Integer.class ? (Object) 2 : "not a boolean");
+                }
+                return resolved;
+            }
+
+            @Override
+            public <E> E resolve(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                                 @Nullable Class<E> fieldType) {
+                assertThat(oriKey).isEqualTo("store.flag");
+                return (E) Boolean.TRUE;
+            }
+
+            @Override
+            public void clean() {
+            }
+        });
+
+        final TestBean bean = util.loadClass(new TestBean());
+        assertThat(bean.getPrimInteger()).isEqualTo(1);
+        assertThat(bean.getObjInteger()).isEqualTo(2);
+        // the batch result was not a Boolean, so it was resolved on its own
+        assertThat(bean.getObjBoolean()).isTrue();
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    public void testBindAllBatchesReferences() throws Exception {
+        final StringBuilder routes = new StringBuilder("routes: [");
+        for (int i = 0; i < 500; i++) {
+            routes.append("{value: {~ref: store.v").append(i).append("}}, ");
+        }
+        routes.append("]");
+        final Config config = ConfigFactory.parseString(routes.toString());
+        final List<Integer> batches = new CopyOnWriteArrayList<Integer>();
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        util.addHandler("store", new BatchReferenceHandler() {
+            @NotNull
+            @Override
+            public Map<String, ?> resolveAll(@NotNull Collection<Request> requests) {
+                batches.add(requests.size());
+                final Map<String, Object> resolved = new HashMap<String, Object>();
+                for (Request request : requests) {
+                    resolved.put(request.getOriKey(), request.getKeyStr());
+                }
+                return resolved;
+            }
+
+            @Override
+            public <E> E resolve(@NotNull String oriKey, @NotNull String keyStr, @NotNull Config config,
+                                 @Nullable Class<E> fieldType) {
+                throw new IllegalStateException("resolved one at a time: " + oriKey);
+            }
+
+            @Override
+            public void clean() {
+            }
+        });
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final List<SimpleBean> beans;
+        try {
+            beans = util.bindAll(config.getList("routes"), SimpleBean.class, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(beans).hasSize(500);
+        assertThat(beans.get(0).getValue()).isEqualTo("v0");
+        assertThat(beans.get(499).getValue()).isEqualTo("v499");
+        // every chunk took its reference from the one batch started before binding
+        assertThat(batches).containsExactly(500);
+    }
+
+    @Test
+    public void testBindAll() throws Exception {
+        final StringBuilder routes = new StringBuilder("routes: [");
+        for (int i = 0; i < 1000; i++) {
+            routes.append("{value: v").append(i).append("}, ");
+        }
+        routes.append("{~constructor: [last]}]");
+        routes.append(", tenants: {a: {value: x}, b: {~ref: var.b}}, var.b: {value: y}, bad: [{value: ok}, [1]]");
+        final Config config = ConfigFactory.parseString(routes.toString());
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+
+        final List<SimpleBean> beans = util.bindAll(config.getList("routes"), SimpleBean.class);
+        assertThat(beans).hasSize(1001);
+        assertThat(beans.get(0).getValue()).isEqualTo("v0");
+        assertThat(beans.get(999).getValue()).isEqualTo("v999");
+        assertThat(beans.get(1000).getValue()).isEqualTo("last");
+
+        final Map<String, SimpleBean> tenants = util.bindAll(config.getObject("tenants"), SimpleBean.class);
+        assertThat(tenants).containsOnly(entry("a", new SimpleBean("x")), entry("b", new SimpleBean("y")));
+
+        try {
+            util.bindAll(config.getList("bad"), SimpleBean.class);
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Cannot bind list position 1 as " + SimpleBean.class.getName());
+        }
+    }
+
+    @Test
+    public void testConstructorParameters() throws Exception {
+        final Config config = ConfigFactory.parseString("host: example.com, port: 8080, tags: [a, 1], note: hi, " +
+                "missing: {host: x}");
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+
+        final ImmutableBean bean = util.construct(ImmutableBean.class);
+        assertThat(bean.getHost()).isEqualTo("example.com");
+        assertThat(bean.getPort()).isEqualTo(8080);
+        assertThat(bean.getTags()).containsExactly("a", 1);
+        assertThat(bean.getNote()).isEqualTo("hi");
+        assertThat(bean.getInitCount()).isEqualTo(1);
+
+        try {
+            util.construct(config.getConfig("missing"), ImmutableBean.class);
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Missing path: port for primitive constructor parameter of " +
+                    ImmutableBean.class.getName());
+        }
+    }
+
+    @Test
+    public void testConstructorParameterNames() throws Exception {
+        final Config config = ConfigFactory.parseString("host: example.com, port: 8080, limits: {1: 10}");
+        final ConfiguratorUtil util = ConfiguratorUtil.withConfig(config);
+        final BindingStats stats = new BindingStats();
+        util.setMetrics(stats);
+
+        final NamedParamBean bean = util.construct(NamedParamBean.class);
+        assertThat(bean.getHost()).isEqualTo("example.com");
+        assertThat(bean.getPort()).isEqualTo(8080);
+        // generic parameter type converts the keys
+        assertThat(bean.getLimits()).containsOnly(entry(1, 10));
+
+        final List<String> operations = new ArrayList<String>();
+        for (BindingStats.Timing timing : stats.getOperations()) {
+            operations.add(timing.getName());
+        }
+        assertThat(operations).contains("LOAD_CLASS " + NamedParamBean.class.getName());
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.flaminc.config;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EnvironmentConfigsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ClassLoader previous;
+
+    @Before
+    public void before() throws Exception {
+        previous = Thread.currentThread().getContextClassLoader();
+        EnvironmentContext.clearEnvConfigs();
+    }
+
+    @After
+    public void after() throws Exception {
+        Thread.currentThread().setContextClassLoader(previous);
+        EnvironmentContext.clearEnvConfigs();
+    }
+
+    @Test
+    public void testGetEnvConfigOnce() throws Exception {
+        final File directory = folder.newFolder("classes");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, "application.conf")),
+                "UTF-8");
+        try {
+            writer.write("all.var.blah:all,qa.var.blah:qa,dev.var.other:dev");
+        } finally {
+            writer.close();
+        }
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{directory.toURI().toURL()},
+                previous));
+
+        final Config qa = EnvironmentContext.getEnvConfig("qa");
+        assertThat(qa.getString("var.blah")).isEqualTo("qa");
+        assertThat(EnvironmentContext.getEnvConfig("qa")).isSameAs(qa);
+        assertThat(EnvironmentContext.getEnvConfig("dev").getString("var.blah")).isEqualTo("all");
+        System.setProperty(EnvironmentContext.SYSTEM_ENVIRONMENT, "qa");
+        try {
+            assertThat(EnvironmentContext.resolveEnvConfig()).isSameAs(qa);
+        } finally {
+            System.clearProperty(EnvironmentContext.SYSTEM_ENVIRONMENT);
+        }
+
+        EnvironmentContext.clearEnvConfigs();
+        assertThat(EnvironmentContext.getEnvConfig("qa")).isEqualTo(qa);
+    }
+
+    @Test
+    public void testResolveEnvConfigs() throws Exception {
+        final Config config = ConfigFactory.parseString("" +
+                "all.var.blah:all," +
+                "all.var.ref:${var.blah}," +
+                "qa.var.blah:qa," +
+                "prd.var.blah:prd," +
+                "dev.var.other:dev");
+
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        final Map<String, Config> configs;
+        try {
+            configs = EnvironmentContext.resolveEnvConfigs(config, Arrays.asList("dev", "qa", "prd"), pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(configs.keySet()).containsExactly("dev", "qa", "prd");
+        assertThat(configs.get("dev").getString("var.ref")).isEqualTo("all");
+        assertThat(configs.get("qa").getString("var.ref")).isEqualTo("qa");
+        assertThat(configs.get("prd").getString("var.ref")).isEqualTo("prd");
+    }
+
+    @Test
+    public void testResolveEnvConfigsReportsAllFailures() throws Exception {
+        final Config config = ConfigFactory.parseString("" +
+                "all.var.blah:all," +
+                "qa.var.ref:${missing}," +
+                "dev.var.other:dev");
+
+        try {
+            EnvironmentContext.resolveEnvConfigs(config, Arrays.asList("dev", "qa", "prd"),
+                    ForkJoinPool.commonPool());
+            Assert.fail("expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Cannot resolve environments [qa, prd]");
+            assertThat(e.getSuppressed()).hasSize(2);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.flaminc.config;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceRegistryTest {
+
+    @Test
+    public void testCycleAcrossThreadsAtOnce() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            final ReferenceRegistry registry = new ReferenceRegistry();
+            final CyclicBarrier bothBuilding = new CyclicBarrier(2);
+            final ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                final Future<Object> a = executor.submit(get(registry, bothBuilding, "var.a", "var.b"));
+                final Future<Object> b = executor.submit(get(registry, bothBuilding, "var.b", "var.a"));
+                final List<String> failures = new ArrayList<String>();
+                for (Future<Object> future : new Future[]{a, b}) {
+                    try {
+                        future.get(10, TimeUnit.SECONDS);
+                    } catch (ExecutionException e) {
+                        failures.add(e.getCause().getMessage());
+                    }
+                }
+                assertThat(failures).isNotEmpty();
+                assertThat(failures.get(0)).startsWith("Circular reference: ");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static Callable<Object> get(final ReferenceRegistry registry, final CyclicBarrier bothBuilding,
+                                        final String key, final String next) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return registry.get(key, new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        bothBuilding.await(10, TimeUnit.SECONDS);
+                        return registry.get(next, new Callable<Object>() {
+                            @Override
+                            public Object call() {
+                                return next;
+                            }
+                        });
+                    }
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.flaminc.config.processor;
+
+import com.github.flaminc.config.ConfigBinder;
+import com.github.flaminc.config.ConfiguratorUtil;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ConfigBinderProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String BEAN = "" +
+            "package sample;\n" +
+            "\n" +
+            "import javax.annotation.PostConstruct;\n" +
+            "import javax.annotation.Resource;\n" +
+            "import java.util.Map;\n" +
+            "\n" +
+            "public class Bean {\n" +
+            "    @Resource\n" +
+            "    String name;\n" +
+            "    @Resource\n" +
+            "    private int port = 8080;\n" +
+            "    @Resource\n" +
+            "    Map<String, Object> extra;\n" +
+            "    @Resource\n" +
+            "    Map<Integer, Integer> limits;\n" +
+            "    public boolean setterCalled;\n" +
+            "    public boolean initialized;\n" +
+            "\n" +
+            "    public void setPort(int port) {\n" +
+            "        this.port = port;\n" +
+            "        setterCalled = true;\n" +
+            "    }\n" +
+            "\n" +
+            "    @PostConstruct\n" +
+            "    public void init() {\n" +
+            "        initialized = true;\n" +
+            "    }\n" +
+            "}\n";
+
+    private static final String HIDDEN = "" +
+            "package sample;\n" +
+            "\n" +
+            "import javax.annotation.Resource;\n" +
+            "\n" +
+            "public class Hidden {\n" +
+            "    @Resource\n" +
+            "    private String value;\n" +
+            "}\n";
+
+    @Test
+    public void testGeneratedBinder() throws Exception {
+        final ClassLoader loader = compile();
+
+        final Class<?> beanType = loader.loadClass("sample.Bean");
+        assertThat(ConfigBinder.class.isAssignableFrom(loader.loadClass("sample.Bean_ConfigBinder"))).isTrue();
+
+        final Config config = ConfigFactory.parseString("name:blah,port:3128,extra:{a:1},limits:{1:2}");
+        final Object bean = ConfiguratorUtil.withConfig(config).loadClass(beanType.newInstance());
+
+        final Field name = beanType.getDeclaredField("name");
+        name.setAccessible(true);
+        assertThat(name.get(bean)).isEqualTo("blah");
+        // declared type arguments are passed from the generated binder
+        final Field limits = beanType.getDeclaredField("limits");
+        limits.setAccessible(true);
+        assertThat((Map<Object, Object>) limits.get(bean)).containsOnly(entry((Object) 1, (Object) 2));
+        // private field goes through the setter in the generated binder
+        assertThat(beanType.getField("setterCalled").get(bean)).isEqualTo(true);
+        assertThat(beanType.getField("initialized").get(bean)).isEqualTo(true);
+    }
+
+    @Test
+    public void testReloadThroughGeneratedBinder() throws Exception {
+        final ClassLoader loader = compile();
+        final Class<?> beanType = loader.loadClass("sample.Bean");
+        final Object bean = beanType.newInstance();
+
+        final Config config = ConfigFactory.parseString("name:blah,port:3128");
+        ConfiguratorUtil.withConfig(config).reloadFields(config, bean, Collections.singleton("port"));
+
+        // only the port was wired again, through the setter of the generated binder
+        final Field name = beanType.getDeclaredField("name");
+        name.setAccessible(true);
+        assertThat(name.get(bean)).isNull();
+        assertThat(beanType.getField("setterCalled").get(bean)).isEqualTo(true);
+        assertThat(beanType.getField("initialized").get(bean)).isEqualTo(true);
+    }
+
+    @Test
+    public void testNoBinderWithoutAccess() throws Exception {
+        final ClassLoader loader = compile();
+
+        try {
+            loader.loadClass("sample.Hidden_ConfigBinder");
+            Assert.fail("expected no binder");
+        } catch (ClassNotFoundException e) {
+            // expected, falls back to reflection
+        }
+        final Class<?> hiddenType = loader.loadClass("sample.Hidden");
+        final Object hidden = ConfiguratorUtil.withConfig(ConfigFactory.parseString("value:blah"))
+                .loadClass(hiddenType.newInstance());
+        final Field value = hiddenType.getDeclaredField("value");
+        value.setAccessible(true);
+        assertThat(value.get(hidden)).isEqualTo("blah");
+    }
+
+    private ClassLoader compile() throws Exception {
+        final File src = folder.newFolder("src", "sample");
+        final File out = folder.newFolder("out");
+        write(new File(src, "Bean.java"), BEAN);
+        write(new File(src, "Hidden.java"), HIDDEN);
+
+        final String classPath = location(ConfiguratorUtil.class) + File.pathSeparator + location(Config.class);
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        final int result = compiler.run(null, null, errors,
+                "-classpath", classPath,
+                "-processor", ConfigBinderProcessor.class.getName(),
+                "-d", out.getPath(),
+                "-s", out.getPath(),
+                new File(src, "Bean.java").getPath(),
+                new File(src, "Hidden.java").getPath());
+        assertThat(result).as(errors.toString()).isEqualTo(0);
+
+        return new URLClassLoader(new URL[]{out.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private static String location(Class<?> type) throws Exception {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private static void write(File file, String content) throws Exception {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
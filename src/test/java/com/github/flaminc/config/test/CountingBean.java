@@ -0,0 +1,31 @@
+package com.github.flaminc.config.test;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+public class CountingBean {
+    @Resource
+    private String value;
+
+    @Resource
+    private String other;
+
+    private int initCount;
+
+    @PostConstruct
+    public void init() {
+        initCount++;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getOther() {
+        return other;
+    }
+
+    public int getInitCount() {
+        return initCount;
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.flaminc.config.test;
+
+import javax.annotation.Resource;
+
+public class FinalBean {
+    @Resource
+    private final String value = null;
+
+    public String getValue() {
+        return value;
+    }
+}
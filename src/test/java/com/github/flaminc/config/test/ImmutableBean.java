@@ -0,0 +1,56 @@
+package com.github.flaminc.config.test;
+
+import com.github.flaminc.config.ConfigParam;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.List;
+
+public class ImmutableBean {
+    private final String host;
+
+    private final int port;
+
+    private final List<Object> tags;
+
+    @Resource
+    private String note;
+
+    private int initCount;
+
+    public ImmutableBean(@ConfigParam("host") String host, @ConfigParam("port") int port,
+                         @ConfigParam("tags") List<Object> tags) {
+        this.host = host;
+        this.port = port;
+        this.tags = tags;
+    }
+
+    public ImmutableBean() {
+        this("default", 0, null);
+    }
+
+    @PostConstruct
+    public void init() {
+        initCount++;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public List<Object> getTags() {
+        return tags;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public int getInitCount() {
+        return initCount;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.flaminc.config.test;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Set;
+
+public class ListBean {
+    @Resource
+    private int[] ints;
+
+    @Resource
+    private long[] longs;
+
+    @Resource
+    private double[] doubles;
+
+    @Resource
+    private boolean[] flags;
+
+    @Resource
+    private SimpleBean[] beans;
+
+    @Resource
+    private List<Object> list;
+
+    @Resource
+    private Set<String> set;
+
+    @Resource
+    private Set<Integer> ids;
+
+    @Resource
+    private List<SimpleBean> beanList;
+
+    public int[] getInts() {
+        return ints;
+    }
+
+    public long[] getLongs() {
+        return longs;
+    }
+
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    public boolean[] getFlags() {
+        return flags;
+    }
+
+    public SimpleBean[] getBeans() {
+        return beans;
+    }
+
+    public List<Object> getList() {
+        return list;
+    }
+
+    public Set<String> getSet() {
+        return set;
+    }
+
+    public Set<Integer> getIds() {
+        return ids;
+    }
+
+    public List<SimpleBean> getBeanList() {
+        return beanList;
+    }
+}
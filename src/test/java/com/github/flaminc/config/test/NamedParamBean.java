@@ -0,0 +1,32 @@
+package com.github.flaminc.config.test;
+
+import java.util.Map;
+
+/**
+ * Bean built through its only constructor, matched to config keys by parameter name.
+ */
+public class NamedParamBean {
+    private final String host;
+
+    private final int port;
+
+    private final Map<Integer, Integer> limits;
+
+    public NamedParamBean(String host, int port, Map<Integer, Integer> limits) {
+        this.host = host;
+        this.port = port;
+        this.limits = limits;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public Map<Integer, Integer> getLimits() {
+        return limits;
+    }
+}
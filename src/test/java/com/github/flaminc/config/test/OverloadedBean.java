@@ -0,0 +1,39 @@
+package com.github.flaminc.config.test;
+
+/**
+ * Constructors whose interface parameters score the same.
+ */
+public class OverloadedBean {
+    private final String called;
+
+    public OverloadedBean(Named value) {
+        called = "Named";
+    }
+
+    public OverloadedBean(Labelled value) {
+        called = "Labelled";
+    }
+
+    public OverloadedBean(Tagged value) {
+        called = "Tagged";
+    }
+
+    public String getCalled() {
+        return called;
+    }
+
+    public interface Named {
+    }
+
+    public interface Labelled extends Named {
+    }
+
+    public interface Tagged {
+    }
+
+    public static class Label implements Labelled {
+    }
+
+    public static class NamedTag implements Named, Tagged {
+    }
+}
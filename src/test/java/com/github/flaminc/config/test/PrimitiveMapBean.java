@@ -0,0 +1,37 @@
+package com.github.flaminc.config.test;
+
+import com.github.flaminc.config.collect.IntIntMap;
+import com.github.flaminc.config.collect.LongObjectMap;
+
+import javax.annotation.Resource;
+import java.util.Map;
+
+public class PrimitiveMapBean {
+    @Resource
+    private IntIntMap limits;
+
+    @Resource
+    private LongObjectMap<SimpleBean> routes;
+
+    @Resource
+    private Map<Integer, Integer> counts;
+
+    @Resource
+    private Map<Long, String> names;
+
+    public IntIntMap getLimits() {
+        return limits;
+    }
+
+    public LongObjectMap<SimpleBean> getRoutes() {
+        return routes;
+    }
+
+    public Map<Integer, Integer> getCounts() {
+        return counts;
+    }
+
+    public Map<Long, String> getNames() {
+        return names;
+    }
+}
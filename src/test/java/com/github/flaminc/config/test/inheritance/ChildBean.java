@@ -0,0 +1,16 @@
+package com.github.flaminc.config.test.inheritance;
+
+import javax.annotation.Resource;
+
+public class ChildBean extends ParentBean {
+    @Resource
+    private String name;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}